@@ -0,0 +1,31 @@
+package benchmarks;
+
+import java.io.File;
+
+/**
+ * Locates the map and brain files the benchmarks run on.
+ * 
+ * Files are looked up in the directory given by the antz.home system property,
+ * or the working directory if it is not set, e.g. run from Antz/ with:
+ * java -jar benchmarks/target/benchmarks.jar
+ * @author JOH
+ * @version 1
+ */
+public class BenchmarkFiles {
+
+	/**
+	 * The maps shipped with the game.
+	 */
+	public static final String[] MAPS = {"tiny.world", "sample0.world", "sample1.world", "sample2.world", 
+		"sample3.world", "sample4.world", "sample5.world", "sample6.world", "sample7.world", "sample8.world", 
+		"sample9.world"};
+	
+	/**
+	 * Returns the path of a file the benchmarks use.
+	 * @param name the file name
+	 * @return the path
+	 */
+	public static String path(String name) {
+		return new File(System.getProperty("antz.home", "."), name).getPath();
+	}
+}
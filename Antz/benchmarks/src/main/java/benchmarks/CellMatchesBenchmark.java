@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import world.World;
+import ai.StateMachine;
+import enums.E_Color;
+import enums.E_Condition;
+
+/**
+ * Measures World.cellMatches for each sense condition.
+ * Each invocation senses the condition in every cell of sample0.world part way through a game, 
+ * so that ants, food and markers are spread about the map.
+ * @author JOH
+ * @version 1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellMatchesBenchmark {
+
+	@Param({"FRIEND", "FOE", "FRIENDWITHFOOD", "FOEWITHFOOD", "FOOD", "ROCK", "MARKER0", "MARKER1", 
+		"MARKER2", "MARKER3", "MARKER4", "MARKER5", "FOEMARKER", "HOME", "FOEHOME"})
+	public String condition;
+	
+	private World world;
+	private E_Condition cond;
+	private int cells;
+	
+	/**
+	 * Plays the first 5000 turns of a game on sample0.world.
+	 */
+	@Setup
+	public void setup() {
+		world = World.parseWorld(BenchmarkFiles.path("sample0.world"));
+		if (world == null)
+			throw new IllegalStateException("Could not load " + BenchmarkFiles.path("sample0.world"));
+		world.setRedBrain("sample.ant", StateMachine.newInstance(BenchmarkFiles.path("sample.ant")));
+		world.setBlackBrain("exampleBrain.txt", StateMachine.newInstance(BenchmarkFiles.path("exampleBrain.txt")));
+		world.runHeadless(5000);
+		cond = E_Condition.valueOf(condition);
+		cells = world.getWidth() * world.getHeight();
+	}
+	
+	/**
+	 * Senses the condition in every cell, alternating colors.
+	 * @return the number of matches, so the calls cannot be optimised away
+	 */
+	@Benchmark
+	public int sweep() {
+		int matches = 0;
+		for (int i = 0; i < cells; i++) {
+			if (world.cellMatches(i, cond, (i & 1) == 0 ? E_Color.RED : E_Color.BLACK))
+				matches++;
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import world.World;
+import ai.StateMachine;
+
+/**
+ * Measures loading brains and maps, and generating a random map.
+ * Note generateMap() also writes automap.txt to the working directory, as it does in the game.
+ * @author JOH
+ * @version 1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	/**
+	 * The brain file to parse.
+	 */
+	@State(Scope.Thread)
+	public static class BrainFile {
+		@Param({"sample.ant", "exampleBrain.txt"})
+		public String brain;
+	}
+	
+	/**
+	 * The map file to parse.
+	 */
+	@State(Scope.Thread)
+	public static class MapFile {
+		@Param({"tiny.world", "sample0.world", "sample1.world", "sample2.world", "sample3.world", "sample4.world", 
+			"sample5.world", "sample6.world", "sample7.world", "sample8.world", "sample9.world"})
+		public String map;
+	}
+	
+	/**
+	 * Parses a brain file.
+	 * @param file the brain file
+	 * @return the brain
+	 */
+	@Benchmark
+	public StateMachine parseBrain(BrainFile file) {
+		return StateMachine.newInstance(BenchmarkFiles.path(file.brain));
+	}
+	
+	/**
+	 * Parses a map file.
+	 * @param file the map file
+	 * @return the world
+	 */
+	@Benchmark
+	public World parseWorld(MapFile file) {
+		return World.parseWorld(BenchmarkFiles.path(file.map));
+	}
+	
+	/**
+	 * Generates a random map.
+	 * @return the world
+	 */
+	@Benchmark
+	public World generateMap() {
+		return World.generateMap();
+	}
+}
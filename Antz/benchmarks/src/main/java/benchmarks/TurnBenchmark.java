@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import world.GameResult;
+import world.World;
+import ai.StateMachine;
+
+/**
+ * Measures game turns per second on each of the shipped maps.
+ * Each invocation plays a fresh headless game of TURNS turns, so the score is in turns per second.
+ * @author JOH
+ * @version 1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TurnBenchmark {
+
+	private static final int TURNS = 2000;
+	
+	@Param({"tiny.world", "sample0.world", "sample1.world", "sample2.world", "sample3.world", "sample4.world", 
+		"sample5.world", "sample6.world", "sample7.world", "sample8.world", "sample9.world"})
+	public String map;
+	
+	private World world;
+	
+	/**
+	 * Loads the map and the two sample brains.
+	 */
+	@Setup
+	public void setup() {
+		world = World.parseWorld(BenchmarkFiles.path(map));
+		if (world == null)
+			throw new IllegalStateException("Could not load " + BenchmarkFiles.path(map));
+		world.setRedBrain("sample.ant", StateMachine.newInstance(BenchmarkFiles.path("sample.ant")));
+		world.setBlackBrain("exampleBrain.txt", StateMachine.newInstance(BenchmarkFiles.path("exampleBrain.txt")));
+	}
+	
+	/**
+	 * Plays a game of TURNS turns.
+	 * @return the result, so the game cannot be optimised away
+	 */
+	@Benchmark
+	@OperationsPerInvocation(TURNS)
+	public GameResult turns() {
+		return world.runHeadless(TURNS);
+	}
+}
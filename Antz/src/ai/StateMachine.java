@@ -7,9 +7,14 @@ import java.util.ArrayList;
 
 import program.Ant;
 import program.Main;
+import world.AntTable;
 import world.Cell;
+import world.World;
 
+import enums.E_Color;
+import enums.E_Condition;
 import enums.E_Instruction;
+import enums.E_Terrain;
 
 /**
  * Represents the StateMachine for Ant Brains.
@@ -21,6 +26,23 @@ public class StateMachine {
 	private ArrayList<State_Abstract> states;			//	The list of states (max 10000)
 	private String name;								//	The filename
 	
+	//	Compiled form of the states, indexed by state number
+	private int[] opcodes;								//	The instruction (one of the OP_ constants)
+	private int[] operands1;							//	Sense direction, marker, left/right or p, as an int
+	private int[] operands2;							//	Sense condition, as an int
+	private int[] states1;								//	First jump target
+	private int[] states2;								//	Second jump target
+	
+	//	Opcodes, in E_Instruction order
+	private static final int OP_SENSE = 0, OP_MARK = 1, OP_UNMARK = 2, OP_PICKUP = 3, 
+			OP_DROP = 4, OP_TURN = 5, OP_MOVE = 6, OP_FLIP = 7;
+	//	Sense directions and turns, in E_SenseDirection and E_LeftOrRight order
+	private static final int HERE = 0, LEFTAHEAD = 2, RIGHTAHEAD = 3;
+	private static final int LEFT = 0;
+	
+	//	Enum lookup, built once rather than cloned by values() on every step
+	private static final E_Condition[] CONDITIONS = E_Condition.values();
+	
 	/**
 	 * Private Constructor. Sets up an empty state machine.
 	 */
@@ -33,7 +55,119 @@ public class StateMachine {
 	 * @param ant
 	 */
 	public void step(Ant ant, Cell cell) {
-		states.get(ant.getCurrentState()).step(ant, cell);
+		step(cell.getWorld(), ant.getId());
+	}
+	
+	/**
+	 * Given an ant (by id), gets and executes the next instruction. 
+	 * Runs from the compiled tables and the world's ant table, giving the same result as the state's own step().
+	 * @param world the world the ant is in
+	 * @param id the ant's id
+	 */
+	public void step(World world, int id) {
+		AntTable ants = world.getAnts();
+		int state = ants.getState(id);
+		int cell = ants.getPosition(id);
+		E_Color color = ants.getColor(id);
+		int direction;
+		switch (opcodes[state]) {
+			case OP_SENSE:
+				int toCheck = cell;
+				if (operands1[state] != HERE) {
+					direction = ants.getDirection(id);
+					if (operands1[state] == LEFTAHEAD)
+						direction = (direction + 5) % 6;
+					else if (operands1[state] == RIGHTAHEAD)
+						direction = (direction + 1) % 6;
+					toCheck = world.adjacentIndex(cell, direction);
+				}
+				if (world.cellMatches(toCheck, CONDITIONS[operands2[state]], color))
+					ants.setState(id, states1[state]);
+				else
+					ants.setState(id, states2[state]);
+				break;
+			case OP_MARK:
+				world.setMarker(cell, color, operands1[state]);
+				ants.setState(id, states1[state]);
+				break;
+			case OP_UNMARK:
+				world.clearMarker(cell, color, operands1[state]);
+				ants.setState(id, states1[state]);
+				break;
+			case OP_PICKUP:
+				if (world.foodAt(cell) > 0 && !ants.hasFood(id)) {
+					world.setAntHasFood(id, true);
+					world.setFoodAt(cell, world.foodAt(cell) - 1);
+					ants.setState(id, states1[state]);
+				} else {
+					ants.setState(id, states2[state]);
+				}
+				break;
+			case OP_DROP:
+				if (ants.hasFood(id)) {
+					world.setAntHasFood(id, false);
+					world.setFoodAt(cell, world.foodAt(cell) + 1);
+				}
+				ants.setState(id, states1[state]);
+				break;
+			case OP_TURN:
+				direction = ants.getDirection(id);
+				if (operands1[state] == LEFT)
+					world.setAntDirection(id, (direction + 5) % 6);
+				else
+					world.setAntDirection(id, (direction + 1) % 6);
+				ants.setState(id, states1[state]);
+				break;
+			case OP_MOVE:
+				int forward = world.adjacentIndex(cell, ants.getDirection(id));
+				if (forward == -1 || world.terrainAt(forward) == E_Terrain.ROCKY || world.antIdAt(forward) != -1) {
+					ants.setState(id, states2[state]);
+				} else {
+					world.clearAntAt(cell);
+					world.setAntIdAt(forward, id);
+					ants.setState(id, states1[state]);
+					ants.setResting(id, 14);
+					world.checkForSurroundedAnts(forward);
+				}
+				break;
+			case OP_FLIP:
+				if (world.getRandGenerator().randomInt(operands1[state]) == 0)
+					ants.setState(id, states1[state]);
+				else
+					ants.setState(id, states2[state]);
+				break;
+		}
+	}
+	
+	/**
+	 * Given an ant (by id), executes the next instruction through the state's own step(), as written 
+	 * from the spec, on the Ant and Cell views. Slower than step(World, int), but the reference it is checked against.
+	 * @param world the world the ant is in
+	 * @param id the ant's id
+	 */
+	public void stepByStates(World world, int id) {
+		AntTable ants = world.getAnts();
+		states.get(ants.getState(id)).step(ants.view(id), world.getCellAt(ants.getPosition(id)));
+	}
+	
+	/**
+	 * Packs the parsed states into the primitive tables used by step().
+	 */
+	private void compile() {
+		int n = states.size();
+		opcodes = new int[n];
+		operands1 = new int[n];
+		operands2 = new int[n];
+		states1 = new int[n];
+		states2 = new int[n];
+		for (int i = 0; i < n; i++) {
+			int[] packed = states.get(i).pack();
+			opcodes[i] = states.get(i).getInstruction().ordinal();
+			operands1[i] = packed[0];
+			operands2[i] = packed[1];
+			states1[i] = packed[2];
+			states2[i] = packed[3];
+		}
 	}
 	
 	/**
@@ -72,6 +206,7 @@ public class StateMachine {
 			return null;
 		}
 		//	StateMachine is fully populated & validated
+		sm.compile();
 		return sm;
 	}
 
@@ -43,6 +43,14 @@ public abstract class State_Abstract {
 
 	}
 	
+	/**
+	 * Implement this method in each inheriting state to give its arguments in the form used by the 
+	 * compiled StateMachine: {operand1, operand2, state1, state2}, with 0 for anything unused.
+	 * Enum arguments are given by ordinal.
+	 * @return the packed arguments
+	 */
+	public abstract int[] pack();
+	
 	//
 	//	Helper methods ::-
 	//
@@ -36,4 +36,9 @@ public class State_Drop extends State_Abstract {
 		//	Goto state1
 		ant.setCurrentState(state1);
 	}
+	
+	@Override
+	public int[] pack() {
+		return new int[] {0, 0, state1, 0};
+	}
 }
@@ -1,7 +1,6 @@
 package ai;
 
 import program.Ant;
-import program.RandGenerator;
 import world.Cell;
 import enums.E_Instruction;
 
@@ -33,10 +32,15 @@ public class State_Flip extends State_Abstract {
 	 */
 	@Override
 	public void step(Ant ant, Cell cell) {
-		int rand = RandGenerator.randomInt(p);
+		int rand = cell.getWorld().getRandGenerator().randomInt(p);
 		if (rand == 0)
 			ant.setCurrentState(state1);
 		else
 			ant.setCurrentState(state2);
 	}
+	
+	@Override
+	public int[] pack() {
+		return new int[] {p, 0, state1, state2};
+	}
 }
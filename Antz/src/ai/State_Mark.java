@@ -33,4 +33,9 @@ public class State_Mark extends State_Abstract {
 		cell.setMarker(ant.getColor(), marker);
 		ant.setCurrentState(state1);
 	}
+	
+	@Override
+	public int[] pack() {
+		return new int[] {marker, 0, state1, 0};
+	}
 }
@@ -41,12 +41,17 @@ public class State_Move extends State_Abstract {
 			ant.setCurrentState(state2);
 		} else {
 			//	We can go in this direction - clear this cell & move ant to new cell
-			cell.setAnt(null);
-			forward.setAnt(ant);
+			cell.getWorld().clearAntAt(cell.getPosition());
+			cell.getWorld().setAntAt(forward.getPosition(), ant);
 			ant.setCurrentState(state1);
 			//	must rest for 14 turns
 			ant.setResting(14);
 			cell.getWorld().checkForSurroundedAnts(forward.getPosition());
 		}
 	}
+	
+	@Override
+	public int[] pack() {
+		return new int[] {0, 0, state1, state2};
+	}
 }
@@ -41,4 +41,9 @@ public class State_Pickup extends State_Abstract {
 			ant.setCurrentState(state2);
 		}
 	}
+	
+	@Override
+	public int[] pack() {
+		return new int[] {0, 0, state1, state2};
+	}
 }
@@ -98,4 +98,9 @@ public class State_Sense extends State_Abstract {
 			ant.setCurrentState(state2);
 		}
 	}
+	
+	@Override
+	public int[] pack() {
+		return new int[] {senseDir.ordinal(), condition.ordinal(), state1, state2};
+	}
 }
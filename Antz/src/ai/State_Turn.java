@@ -54,5 +54,9 @@ public class State_Turn extends State_Abstract {
 		}
 		ant.setCurrentState(state1);
 	}
-
+	
+	@Override
+	public int[] pack() {
+		return new int[] {leftOrRight.ordinal(), 0, state1, 0};
+	}
 }
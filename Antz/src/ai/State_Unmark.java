@@ -35,4 +35,9 @@ public class State_Unmark extends State_Abstract {
 		}
 		ant.setCurrentState(state1);
 	}
+	
+	@Override
+	public int[] pack() {
+		return new int[] {marker, 0, state1, 0};
+	}
 }
@@ -1,41 +1,39 @@
 package program;
 
 import ai.StateMachine;
+import world.AntTable;
+import world.World;
 import enums.E_Color;
 import enums.E_Direction;
 
 /**
  * Represents an individual Ant in the game world.
+ * 
+ * The ant's details are held in its world's AntTable; an Ant is only a view onto its row.
  * @author JOH
- * @version 1
+ * @version 2
  */
 public class Ant {
 
-	private static int nextID = 0;		//	We want to track individual ants...	
-	private int id;						//	so we automatically assign them an ID
-	private E_Color color;				//	RED or BLACK
-	private StateMachine stateMachine;	//	Reference to the state machine this ant shares with others of the same color; possibly not required
-	private int currentState;			//	The current state ant is in within the StateMachine
-	private int resting;				//	Track of how long we have to rest after a move
-	private E_Direction direction;		//	The direction this ant is facing
-	private boolean hasFood;			//	True if ant is carrying a food particle
-	private boolean isAlive;			//	true if this ant is alive
+	private World world;				//	The world this ant lives in
+	private int id;						//	Index of this ant in the world's ant table; restarts at 0 each game
 	
 	/**
 	 * Constructor.
-	 * @param color	the color of this ant
-	 * @param stateMachine a reference to the state machine shared by all ants of this color
+	 * @param world the world the ant lives in
+	 * @param id the ant's id in the world's ant table
 	 */
-	public Ant(E_Color color, StateMachine stateMachine) {
-		this.id = nextID;
-		nextID ++;
-		this.color = color;
-		this.setStateMachine(stateMachine);
-		this.currentState = 0;
-		hasFood = false;
-		resting = 0;
-		setAlive(true);
-		direction = E_Direction.EAST;
+	public Ant(World world, int id) {
+		this.world = world;
+		this.id = id;
+	}
+	
+	/**
+	 * Returns the table holding this ant's details.
+	 * @return the ant table
+	 */
+	private AntTable table() {
+		return world.getAnts();
 	}
 
 	/**
@@ -43,7 +41,7 @@ public class Ant {
 	 * @return the color of this ant
 	 */
 	public E_Color getColor() {
-		return color;
+		return table().getColor(id);
 	}
 
 	/**
@@ -51,7 +49,7 @@ public class Ant {
 	 * @param color the color to set
 	 */
 	public void setColor(E_Color color) {
-		this.color = color;
+		world.setAntColor(id, color);
 	}
 
 	/**
@@ -59,7 +57,7 @@ public class Ant {
 	 * @return the state
 	 */
 	public int getCurrentState() {
-		return currentState;
+		return table().getState(id);
 	}
 
 	/**
@@ -67,7 +65,7 @@ public class Ant {
 	 * @param currentState the state to set
 	 */
 	public void setCurrentState(int currentState) {
-		this.currentState = currentState;
+		table().setState(id, currentState);
 	}
 
 	/**
@@ -75,7 +73,7 @@ public class Ant {
 	 * @return how many more turns the ant will rest
 	 */
 	public int getResting() {
-		return resting;
+		return table().getResting(id);
 	}
 
 	/**
@@ -83,7 +81,7 @@ public class Ant {
 	 * @param resting the number of turns
 	 */
 	public void setResting(int resting) {
-		this.resting = resting;
+		table().setResting(id, resting);
 	}
 
 	/**
@@ -91,7 +89,7 @@ public class Ant {
 	 * @return the direction
 	 */
 	public E_Direction getDirection() {
-		return direction;
+		return table().getDirectionEnum(id);
 	}
 
 	/**
@@ -99,7 +97,7 @@ public class Ant {
 	 * @param direction the direction
 	 */
 	public void setDirection(E_Direction direction) {
-		this.direction = direction;
+		world.setAntDirection(id, direction.ordinal());
 	}
 
 	/**
@@ -107,7 +105,7 @@ public class Ant {
 	 * @return true if carrying food, false otherwise
 	 */
 	public boolean hasFood() {
-		return hasFood;
+		return table().hasFood(id);
 	}
 
 	/**
@@ -115,7 +113,7 @@ public class Ant {
 	 * @param hasFood true to give food, false to take food
 	 */
 	public void setHasFood(boolean hasFood) {
-		this.hasFood = hasFood;
+		world.setAntHasFood(id, hasFood);
 	}
 
 	/**
@@ -131,7 +129,7 @@ public class Ant {
 	 * @return
 	 */
 	public boolean isAlive() {
-		return isAlive;
+		return table().isAlive(id);
 	}
 
 	/**
@@ -139,24 +137,15 @@ public class Ant {
 	 * @param true if this ant should live, false otherwise
 	 */
 	public void setAlive(boolean isAlive) {
-		this.isAlive = isAlive;
+		table().setAlive(id, isAlive);
 	}
 
 	/**
-	 * Returns this ant's state machine.
+	 * Returns this ant's state machine: the brain of its color.
 	 * @return the state machine
 	 */
 	public StateMachine getStateMachine() {
-		return stateMachine;
-	}
-
-	/**
-	 * Sets this ant's state machine.
-	 * @param stateMachine the state machine to set as this ant's brain
-	 */
-	public void setStateMachine(StateMachine stateMachine) {
-		this.stateMachine = stateMachine;
+		return world.getBrain(getColor());
 	}
-		 
 	
 }
@@ -1,121 +1,322 @@
 package program;
 
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
+
 import enums.E_Color;
-import world.Cell;
-import world.Position;
+import enums.E_Direction;
+import enums.E_Terrain;
+import world.AntTable;
 import world.World;
 
 /**
  * This class provides end-of turn logging facilities for QA.
- * 
+ *
  * This should be a character-for-character copy of the dump provided with the customer spec,
  * assuming playing on the tiny world with the sample brain (as given in the customer spec).
+ *
+ * Lines are built straight into one reusable byte buffer, which is written out through an NIO channel
+ * whenever it fills, so logging a turn allocates nothing. Which turns are logged is set by turn ranges,
+ * each with a stride; with no ranges every turn is logged.
  * @author JOH
- * @version 1
+ * @version 2
  */
 public class AntLogger {
 
 	private World world;
-	
+	private WritableByteChannel out;				//	Where the dump goes
+	private ByteBuffer buffer;						//	Dump text not yet written out
+	private ArrayList<int[]> ranges;				//	Turns to log, each as {first, last, stride}
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_LINE = 256;		//	Longer than any one cell line
+
+	//	Fixed pieces of text, as bytes
+	private static final byte[] AFTER_ROUND = ascii("\nAfter round ");
+	private static final byte[] ELLIPSIS = ascii("...\n");
+	private static final byte[] CELL = ascii("cell (");
+	private static final byte[] FOOD = ascii(" food; ");
+	private static final byte[] RED_HILL = ascii("red hill; ");
+	private static final byte[] BLACK_HILL = ascii("black hill; ");
+	private static final byte[] ROCK = ascii("rock ");
+	private static final byte[][] MARKS = { ascii("red marks: "), ascii("black marks: ") };
+	private static final byte[][] ANT = { ascii("red ant of id "), ascii("black ant of id ") };
+	private static final byte[] FOOD_0 = ascii(", food 0, state ");
+	private static final byte[] FOOD_1 = ascii(", food 1, state ");
+	private static final byte[] RESTING = ascii(", resting ");
+	private static final byte[][] DIRECTIONS = new byte[E_Direction.values().length][];
+	static {
+		for (E_Direction d : E_Direction.values()) {
+			DIRECTIONS[d.ordinal()] = ascii(d.name());
+		}
+	}
+
 	/**
-	 * Constructor.
+	 * Constructor. Logs to standard output.
 	 * @param world
 	 */
 	public AntLogger(World world) {
+		this(world, new FileOutputStream(FileDescriptor.out).getChannel());
+	}
+
+	/**
+	 * Constructor. Logs to the given channel.
+	 * @param world
+	 * @param out the channel to write the dump to
+	 */
+	public AntLogger(World world, WritableByteChannel out) {
 		this.world = world;
-		System.out.println("random seed: " + RandGenerator.getSeed() + "\n");
+		this.out = out;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.ranges = new ArrayList<>();
+		append(ascii("random seed: " + world.getRandGenerator().getSeed() + "\n\n"));
+	}
+
+	/**
+	 * Factory method. Logs to a file, gzipped if asked.
+	 * @param world
+	 * @param file the file to write the dump to, replacing anything already there
+	 * @param gzip true to compress the dump
+	 * @return the logger
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static AntLogger toFile(World world, Path file, boolean gzip) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		if (gzip) {
+			return new AntLogger(world, Channels.newChannel(
+					new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)));
+		}
+		return new AntLogger(world, channel);
 	}
-	
+
+	/**
+	 * Adds a range of turns to log.
+	 * @param first the first turn to log
+	 * @param last the last turn to log
+	 * @param stride log every stride-th turn from first on
+	 */
+	public void addTurns(int first, int last, int stride) {
+		if (first < 0 || last < first || stride < 1) {
+			throw new IllegalArgumentException("Bad turn range: " + first + "-" + last + "/" + stride);
+		}
+		ranges.add(new int[] {first, last, stride});
+	}
+
+	/**
+	 * Adds the turn ranges given in a spec such as "0-99,1000-300000/1000".
+	 * Each range is first-last, optionally followed by /stride; a single turn may be given on its own.
+	 * @param spec the comma-separated ranges
+	 */
+	public void addTurns(String spec) {
+		for (String range : spec.split(",")) {
+			try {
+				int stride = 1;
+				int slash = range.indexOf('/');
+				if (slash != -1) {
+					stride = Integer.parseInt(range.substring(slash + 1).trim());
+					range = range.substring(0, slash);
+				}
+				int dash = range.indexOf('-');
+				if (dash == -1) {
+					int only = Integer.parseInt(range.trim());
+					addTurns(only, only, stride);
+				} else {
+					addTurns(Integer.parseInt(range.substring(0, dash).trim()),
+							Integer.parseInt(range.substring(dash + 1).trim()), stride);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Bad turn range: " + range);
+			}
+		}
+	}
+
+	/**
+	 * Whether the given turn is to be logged.
+	 * @param turn the turn
+	 * @return true if the turn falls on one of the ranges, or there are no ranges
+	 */
+	public boolean isLogged(int turn) {
+		if (ranges.isEmpty())
+			return true;
+		for (int[] range : ranges) {
+			if (turn >= range[0] && turn <= range[1] && (turn - range[0]) % range[2] == 0)
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Prints out the current state of the world.
 	 */
 	public void logTurn() {
-		System.out.println("\nAfter round " + world.getTurn() + "...");
-		for (int x = 0; x < world.getWidth(); x++) {
-			for (int y = 0; y < world.getHeight(); y++) {
-				Cell cell = world.getCellAt(new Position(y, x));
-				String cellContents = food(cell) + terrain(cell) +  markerInfo(cell, E_Color.RED) + markerInfo(cell, E_Color.BLACK) + antInfo(cell);
-				
-				System.out.println("cell (" + y +", " + x + "): " + cellContents);
+		AntTable ants = world.getAnts();
+		int width = world.getWidth();
+		append(AFTER_ROUND);
+		appendInt(world.getTurn());
+		append(ELLIPSIS);
+		for (int y = 0; y < world.getHeight(); y++) {
+			for (int x = 0; x < width; x++) {
+				if (buffer.remaining() < MAX_LINE)
+					drain();
+				int i = y * width + x;
+				append(CELL);
+				appendInt(x);
+				buffer.put((byte) ',').put((byte) ' ');
+				appendInt(y);
+				buffer.put((byte) ')').put((byte) ':').put((byte) ' ');
+				food(i);
+				terrain(i);
+				markerInfo(i, E_Color.RED);
+				markerInfo(i, E_Color.BLACK);
+				antInfo(ants, i);
+				buffer.put((byte) '\n');
 			}
 		}
 	}
 
 	/**
-	 * Returns formatted info about the ant in a cell.
-	 * @param cell the cell to report on
-	 * @return the formatted string
+	 * Writes out everything logged so far.
 	 */
-	private String antInfo(Cell cell) {
-		String info = "";
-		if (cell.isAnt()) {
-			Ant ant = cell.getAnt();
-			if (ant.getColor() == E_Color.RED) {
-				info += "red ";
-			} else {
-				info += "black ";
-			}
-			int food = 0;
-			if (ant.hasFood()) {
-				food = 1;
-			}
-			info += "ant of id " + ant.getId() + ", " + ant.getDirection() +", food " + food + ", state " + ant.getCurrentState() + ", resting " + ant.getResting(); 
+	public void flush() {
+		drain();
+	}
+
+	/**
+	 * Writes out everything logged so far and closes the output.
+	 */
+	public void close() {
+		drain();
+		try {
+			out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		return info;
 	}
 
 	/**
-	 * Returns formatted information about markers in a cell.
-	 * @param cell the cell to check
+	 * Appends formatted info about the ant in a cell.
+	 * @param ants the world's ants
+	 * @param i the index of the cell to report on
+	 */
+	private void antInfo(AntTable ants, int i) {
+		int id = world.antIdAt(i);
+		if (id != -1) {
+			append(ANT[ants.getColor(id).ordinal()]);
+			appendInt(id);
+			buffer.put((byte) ',').put((byte) ' ');
+			append(DIRECTIONS[ants.getDirection(id)]);
+			append(ants.hasFood(id) ? FOOD_1 : FOOD_0);
+			appendInt(ants.getState(id));
+			append(RESTING);
+			appendInt(ants.getResting(id));
+		}
+	}
+
+	/**
+	 * Appends formatted information about markers in a cell.
+	 * @param i the index of the cell to check
 	 * @param color the color to check for
-	 * @return the formatted string
-	 */
-	private String markerInfo(Cell cell, E_Color color) {
-		String info = "";
-		String colorName;
-		if (color == E_Color.RED)
-			colorName = "red";
-		else
-			colorName = "black";
-		// 	Marker info
-		if (cell.checkAnyMarker(color)) {
-			info += colorName + " marks: ";
-			for (int i = 0; i < 6; i ++) {
-				if (cell.checkMarker(color, i)) {
-					info += i;
+	 */
+	private void markerInfo(int i, E_Color color) {
+		if (world.checkAnyMarker(i, color)) {
+			append(MARKS[color.ordinal()]);
+			for (int m = 0; m < 6; m ++) {
+				if (world.checkMarker(i, color, m)) {
+					buffer.put((byte) ('0' + m));
 				}
 			}
-			info +="; ";
+			buffer.put((byte) ';').put((byte) ' ');
 		}
-		return info;
 	}
 
 	/**
-	 * Returns a formatted string giving the amount of food in a cell.
-	 * @param cell the cell to report on
-	 * @return the formatted string
+	 * Appends the amount of food in a cell.
+	 * @param i the index of the cell to report on
 	 */
-	private String food(Cell cell) {
-		if (cell.getFoodAmount() > 0)
-			return cell.getFoodAmount() + " food; ";
-		return "";
+	private void food(int i) {
+		int food = world.foodAt(i);
+		if (food > 0) {
+			appendInt(food);
+			append(FOOD);
+		}
 	}
 
 	/**
-	 * Returns a formatted string giving the terrain present in a cell.
-	 * @param cell the cell to report on
-	 * @return the formatted string
+	 * Appends the terrain present in a cell.
+	 * @param i the index of the cell to report on
 	 */
-	private String terrain(Cell cell) {
-		switch (cell.getTerrain())
-		{
-		case BLACK_ANTHILL:
-			return "black hill; ";
-		case RED_ANTHILL:
-			return "red hill; ";
-		case ROCKY:
-			return "rock ";
+	private void terrain(int i) {
+		E_Terrain terrain = world.terrainAt(i);
+		if (terrain == E_Terrain.BLACK_ANTHILL)
+			append(BLACK_HILL);
+		else if (terrain == E_Terrain.RED_ANTHILL)
+			append(RED_HILL);
+		else if (terrain == E_Terrain.ROCKY)
+			append(ROCK);
+	}
+
+	/**
+	 * Appends some fixed text, writing out the buffer first if it will not fit.
+	 * @param bytes the text
+	 */
+	private void append(byte[] bytes) {
+		if (buffer.remaining() < bytes.length)
+			drain();
+		buffer.put(bytes);
+	}
+
+	/**
+	 * Appends a number in decimal, without making a String.
+	 * @param n the number
+	 */
+	private void appendInt(int n) {
+		if (n < 0) {
+			buffer.put((byte) '-');
+			n = -n;
+		}
+		int digits = 1;
+		for (int m = n / 10; m > 0; m /= 10)
+			digits++;
+		int end = buffer.position() + digits;
+		for (int p = end - 1; p >= end - digits; p--) {
+			buffer.put(p, (byte) ('0' + n % 10));
+			n /= 10;
+		}
+		buffer.position(end);
+	}
+
+	/**
+	 * Writes the buffer out to the channel and empties it.
+	 */
+	private void drain() {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining())
+				out.write(buffer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		return "";
+		buffer.clear();
+	}
+
+	/**
+	 * Encodes fixed text as bytes; the dump is all ASCII.
+	 * @param text the text
+	 * @return the bytes
+	 */
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
 	}
 }
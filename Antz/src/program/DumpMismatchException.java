@@ -0,0 +1,77 @@
+package program;
+
+import java.io.IOException;
+
+/**
+ * Thrown by DumpVerifier at the first place the engine's dump differs from the reference dump.
+ * @author JOH
+ * @version 1
+ */
+@SuppressWarnings("serial")
+public class DumpMismatchException extends IOException {
+
+	private int round;						//	The round the difference is in, -1 if before the first
+	private int x, y;						//	The cell the difference is in, -1 if not on a cell line
+	private String referenceLine;			//	The reference's line, null if the reference ended
+	private String engineLine;				//	The engine's line, null if the engine's dump ended
+
+	/**
+	 * Constructor.
+	 * @param round the round the difference is in, -1 if before the first
+	 * @param x the x coordinate of the cell, -1 if not on a cell line
+	 * @param y the y coordinate of the cell, -1 if not on a cell line
+	 * @param referenceLine the reference's line, null if the reference ended
+	 * @param engineLine the engine's line, null if the engine's dump ended
+	 */
+	public DumpMismatchException(int round, int x, int y, String referenceLine, String engineLine) {
+		super("Dumps differ " + (round == -1 ? "before the first round" : "in round " + round)
+				+ (x == -1 ? "" : ", cell (" + x + ", " + y + ")")
+				+ "\n  reference: " + (referenceLine == null ? "(end of dump)" : referenceLine)
+				+ "\n  engine:    " + (engineLine == null ? "(end of dump)" : engineLine));
+		this.round = round;
+		this.x = x;
+		this.y = y;
+		this.referenceLine = referenceLine;
+		this.engineLine = engineLine;
+	}
+
+	/**
+	 * Gets the round the difference is in.
+	 * @return the round, -1 if before the first
+	 */
+	public int getRound() {
+		return round;
+	}
+
+	/**
+	 * Gets the x coordinate of the cell the difference is in.
+	 * @return the coordinate, -1 if not on a cell line
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * Gets the y coordinate of the cell the difference is in.
+	 * @return the coordinate, -1 if not on a cell line
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * Gets the reference's line.
+	 * @return the line, without its newline, or null if the reference ended
+	 */
+	public String getReferenceLine() {
+		return referenceLine;
+	}
+
+	/**
+	 * Gets the engine's line.
+	 * @return the line, without its newline, or null if the engine's dump ended
+	 */
+	public String getEngineLine() {
+		return engineLine;
+	}
+}
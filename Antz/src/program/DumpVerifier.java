@@ -0,0 +1,283 @@
+package program;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Checks the engine's dump against a reference dump as it is written, without the engine's dump ever going to disk.
+ *
+ * An AntLogger writes to this channel in place of a file. Each write is compared straight against the reference,
+ * which is memory mapped a window at a time, so dumps of many gigabytes are checked at the speed of the game.
+ * At the first byte that differs the rest of the engine's line is gathered, and the write that completes it
+ * throws a DumpMismatchException giving the round, the cell and both lines. Closing the channel checks
+ * that the reference has ended too.
+ * @author JOH
+ * @version 1
+ */
+public class DumpVerifier implements WritableByteChannel {
+
+	private FileChannel reference;				//	The reference dump
+	private long size;							//	Length of the reference
+	private MappedByteBuffer window;			//	The part of the reference mapped in
+	private long windowStart;					//	Offset of the window in the reference
+	private long matched;						//	Bytes of the engine's dump matched so far
+	private boolean differs;					//	Set at the first byte that differs
+	private ByteArrayOutputStream engineRest;	//	The engine's line from the first byte that differs
+	private boolean open = true;
+
+	private static final long WINDOW_SIZE = 1L << 30;
+	private static final int CHUNK = 1 << 16;	//	Bytes read at a time when searching for lines
+	private static final int MAX_LINE = 1024;	//	Longer lines are cut short in reports
+	private static final byte[] AFTER_ROUND = "After round ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CELL = "cell (".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NEWLINE = {'\n'};
+
+	/**
+	 * Constructor. Opens the reference dump.
+	 * @param reference the reference dump, uncompressed
+	 * @throws IOException if the file cannot be opened
+	 */
+	public DumpVerifier(Path reference) throws IOException {
+		this.reference = FileChannel.open(reference, StandardOpenOption.READ);
+		this.size = this.reference.size();
+		this.engineRest = new ByteArrayOutputStream();
+		map(0);
+	}
+
+	/**
+	 * Finds the last round in the reference dump, so the game need be played no further.
+	 * @return the round, or -1 if the reference has no rounds
+	 * @throws IOException if the reference cannot be read
+	 */
+	public int getLastRound() throws IOException {
+		return roundBefore(size);
+	}
+
+	/**
+	 * Gets how much of the engine's dump has matched the reference so far.
+	 * @return the number of bytes
+	 */
+	public long getMatched() {
+		return matched;
+	}
+
+	/**
+	 * Compares more of the engine's dump with the reference.
+	 * @param src the engine's dump
+	 * @return the number of bytes taken, always all of them
+	 * @throws DumpMismatchException at the end of the first line that differs
+	 * @throws IOException if the reference cannot be read
+	 */
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		int written = src.remaining();
+		while (!differs && src.hasRemaining()) {
+			if (matched == size) {
+				differs = true;
+				break;
+			}
+			if (matched == windowStart + window.limit())
+				map(matched);
+			int off = (int) (matched - windowStart);
+			int len = Math.min(src.remaining(), window.limit() - off);
+			int p = src.position();
+			int k = 0;
+			while (k + 8 <= len && src.getLong(p + k) == window.getLong(off + k))
+				k += 8;
+			while (k < len && src.get(p + k) == window.get(off + k))
+				k++;
+			src.position(p + k);
+			matched += k;
+			if (k < len)
+				differs = true;
+		}
+		while (differs && src.hasRemaining()) {
+			byte b = src.get();
+			if (b == '\n')
+				throw mismatch(false);
+			if (engineRest.size() < MAX_LINE)
+				engineRest.write(b);
+		}
+		return written;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Closes the reference.
+	 * @throws DumpMismatchException if the engine's dump stopped short of the reference, or within a line that differs
+	 * @throws IOException if the reference cannot be read
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!open)
+			return;
+		open = false;
+		try {
+			if (differs || matched < size)
+				throw mismatch(!differs);
+		} finally {
+			window = null;
+			reference.close();
+		}
+	}
+
+	/**
+	 * Describes the first difference.
+	 * @param engineEnded true if the engine's dump ended where the reference goes on
+	 * @return the exception to throw
+	 * @throws IOException if the reference cannot be read
+	 */
+	private DumpMismatchException mismatch(boolean engineEnded) throws IOException {
+		long lineStart = matched == 0 ? 0 : lastIndexOf(NEWLINE, matched - 1) + 1;
+		long lineEnd = indexOf(NEWLINE, matched);
+		String referenceLine = lineStart == size ? null : text(lineStart, lineEnd);
+		String engineLine = null;
+		if (!engineEnded || matched > lineStart) {
+			engineLine = text(lineStart, matched)
+					+ new String(engineRest.toByteArray(), StandardCharsets.US_ASCII);
+		}
+		String cellLine = referenceLine != null && referenceLine.startsWith("cell (") ? referenceLine : engineLine;
+		int x = -1, y = -1;
+		if (cellLine != null && cellLine.startsWith("cell (")) {
+			int comma = cellLine.indexOf(',');
+			int close = cellLine.indexOf(')');
+			try {
+				x = Integer.parseInt(cellLine.substring(CELL.length, comma).trim());
+				y = Integer.parseInt(cellLine.substring(comma + 1, close).trim());
+			} catch (IndexOutOfBoundsException | NumberFormatException e) {
+				x = y = -1;
+			}
+		}
+		return new DumpMismatchException(roundBefore(lineStart + 1), x, y, referenceLine, engineLine);
+	}
+
+	/**
+	 * Finds the round of the last round heading starting before an offset in the reference.
+	 * @param end the offset
+	 * @return the round, or -1 if there is none
+	 * @throws IOException if the reference cannot be read
+	 */
+	private int roundBefore(long end) throws IOException {
+		if (end < AFTER_ROUND.length)
+			return -1;
+		long at = lastIndexOf(AFTER_ROUND, end - 1);
+		if (at == -1)
+			return -1;
+		int round = 0;
+		for (long p = at + AFTER_ROUND.length; p < size; p++) {
+			byte b = readAt(p, 1).get();
+			if (b < '0' || b > '9')
+				break;
+			round = round * 10 + (b - '0');
+		}
+		return round;
+	}
+
+	/**
+	 * Maps in the window of the reference starting at an offset.
+	 * @param start the offset
+	 * @throws IOException if the reference cannot be mapped
+	 */
+	private void map(long start) throws IOException {
+		windowStart = start;
+		window = reference.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+	}
+
+	/**
+	 * Finds the first occurrence of a byte string in the reference at or after an offset.
+	 * @param pattern the bytes to find
+	 * @param from the offset to search from
+	 * @return the offset found, or the size of the reference if there is none
+	 * @throws IOException if the reference cannot be read
+	 */
+	private long indexOf(byte[] pattern, long from) throws IOException {
+		for (long start = from; start < size; start += CHUNK - pattern.length + 1) {
+			ByteBuffer chunk = readAt(start, (int) Math.min(CHUNK, size - start));
+			for (int i = 0; i + pattern.length <= chunk.limit(); i++) {
+				if (matchesAt(chunk, i, pattern))
+					return start + i;
+			}
+			if (start + chunk.limit() == size)
+				break;
+		}
+		return size;
+	}
+
+	/**
+	 * Finds the last occurrence of a byte string in the reference starting at or before an offset.
+	 * @param pattern the bytes to find
+	 * @param from the offset to search back from
+	 * @return the offset found, or -1 if there is none
+	 * @throws IOException if the reference cannot be read
+	 */
+	private long lastIndexOf(byte[] pattern, long from) throws IOException {
+		long end = Math.min(size, from + pattern.length);
+		while (end >= pattern.length) {
+			long start = Math.max(0, end - CHUNK);
+			ByteBuffer chunk = readAt(start, (int) (end - start));
+			for (int i = chunk.limit() - pattern.length; i >= 0; i--) {
+				if (matchesAt(chunk, i, pattern))
+					return start + i;
+			}
+			if (start == 0)
+				break;
+			end = start + pattern.length - 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks for a byte string at a position in a buffer.
+	 * @param chunk the buffer
+	 * @param i the position
+	 * @param pattern the bytes
+	 * @return true if they are there
+	 */
+	private static boolean matchesAt(ByteBuffer chunk, int i, byte[] pattern) {
+		for (int k = 0; k < pattern.length; k++) {
+			if (chunk.get(i + k) != pattern[k])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads part of the reference as text, cut short if it is very long.
+	 * @param start the offset of the first byte
+	 * @param end the offset after the last byte
+	 * @return the text
+	 * @throws IOException if the reference cannot be read
+	 */
+	private String text(long start, long end) throws IOException {
+		ByteBuffer bytes = readAt(start, (int) Math.min(end - start, MAX_LINE));
+		return new String(bytes.array(), 0, bytes.limit(), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Reads bytes from the reference.
+	 * @param offset the offset
+	 * @param length the number of bytes
+	 * @return the bytes, ready to be read
+	 * @throws IOException if the reference cannot be read
+	 */
+	private ByteBuffer readAt(long offset, int length) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(length);
+		while (bytes.hasRemaining()) {
+			if (reference.read(bytes, offset + bytes.position()) < 0)
+				break;
+		}
+		bytes.flip();
+		return bytes;
+	}
+}
@@ -280,6 +280,7 @@ public class GameManager {
 							roundN, redName, blackName);
 
 			//while there is no winner, keep playing a pair of games
+			long seed = world.getSeed();
 			while(getScore(redName) == getScore(blackName)){
 				
 				world.setRedBrain(redName, this.getBrain(redName));
@@ -292,7 +293,11 @@ public class GameManager {
 				world.beginGame();
 				showResults();
 				world.closeScreen();
+				
+				//	Vary the seed so a drawn pair is not simply replayed
+				world.setSeed(world.getSeed() + 1);
 			}
+			world.setSeed(seed);
 			
 			//announce the winner
 			if(getScore(redName)>getScore(blackName)){
@@ -336,6 +341,7 @@ public class GameManager {
 
 		if((playerBrains.containsKey(redName))&&(playerBrains.containsKey(blackName))){			
 			
+			long seed = world.getSeed();
 			while(getScore(redName) == getScore(blackName)){
 				
 				world.setRedBrain(redName, this.getBrain(redName));
@@ -348,7 +354,11 @@ public class GameManager {
 				world.beginGame();
 				showResults();
 				world.closeScreen();
+				
+				//	Vary the seed so a drawn pair is not simply replayed
+				world.setSeed(world.getSeed() + 1);
 			}
+			world.setSeed(seed);
 			
 			//announce the winner
 			if(getScore(redName)>getScore(blackName)){
@@ -0,0 +1,164 @@
+package program;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+import world.GameResult;
+import world.ReplayWriter;
+import world.World;
+import ai.StateMachine;
+
+/**
+ * Command line driver for playing a game without any GUI.
+ * Usage: HeadlessMain world-file red-brain black-brain [seed] [-dump file [turns]] [-verify file [turns]] [-replay file [-nostates]]
+ * 
+ * With -dump the world is dumped in the customer spec format after each selected turn (all turns by default),
+ * to the file, or to standard output if the file is "-". A file ending in .gz is gzipped. Turns are given
+ * as ranges such as "0-9999" or "0-300000/1000", comma separated. When dumping to standard output, the result
+ * goes to standard error, so that standard output holds the dump and nothing else.
+ * With -verify the dump is instead checked against the reference dump in the file as the game is played,
+ * up to the last round in the reference, stopping at the first line that differs. If the dump differs, or stops
+ * short of the reference, or the reference cannot be read, the first difference is reported.
+ * Any failure, from bad arguments to a dump that differs, is reported on standard error with an exit status of 1.
+ * With -replay the game is recorded to the file, to be watched again with ReplayMain; with -nostates too,
+ * without every change of ant state, in about a seventh of the space (see ReplayWriter).
+ * @author JOH
+ * @version 8
+ */
+public class HeadlessMain {
+
+	private static final String USAGE = "Usage: HeadlessMain world-file red-brain black-brain [seed] [-dump file [turns]] [-verify file [turns]] [-replay file [-nostates]]";
+
+	/**
+	 * Plays one game and prints the result.
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 3) {
+			Main.fail(USAGE);
+		}
+		long seed = RandGenerator.DEFAULT_SEED;
+		int next = 3;
+		if (args.length > next && !args[next].startsWith("-")) {
+			try {
+				seed = Long.parseLong(args[next++]);
+			} catch (NumberFormatException e) {
+				Main.fail("Error: seed is not a number: " + args[3]);
+			}
+		}
+		String dumpFile = null;
+		String dumpTurns = null;
+		String verifyFile = null;
+		String replayFile = null;
+		boolean recordStates = true;
+		while (args.length > next) {
+			if ((args[next].equals("-dump") || args[next].equals("-verify")) && args.length > next + 1
+					&& dumpFile == null && verifyFile == null) {
+				if (args[next].equals("-dump"))
+					dumpFile = args[next + 1];
+				else
+					verifyFile = args[next + 1];
+				next += 2;
+				//	Turn ranges never start with "-"
+				if (args.length > next && !args[next].startsWith("-")) {
+					dumpTurns = args[next++];
+				}
+			} else if (args[next].equals("-replay") && args.length > next + 1) {
+				replayFile = args[next + 1];
+				next += 2;
+			} else if (args[next].equals("-nostates")) {
+				recordStates = false;
+				next++;
+			} else {
+				Main.fail(USAGE);
+			}
+		}
+		World world = World.parseWorld(args[0]);
+		if (world == null) {
+			Main.fail("Error: could not load world: " + args[0]);
+		}
+		world.setSeed(seed);
+		StateMachine redBrain = StateMachine.newInstance(args[1]);
+		if (redBrain == null) {
+			Main.fail("Error: could not load brain: " + args[1]);
+		}
+		StateMachine blackBrain = StateMachine.newInstance(args[2]);
+		if (blackBrain == null) {
+			Main.fail("Error: could not load brain: " + args[2]);
+		}
+		world.setRedBrain(args[1], redBrain);
+		world.setBlackBrain(args[2], blackBrain);
+		
+		AntLogger logger = null;
+		if (dumpFile != null) {
+			try {
+				if (dumpFile.equals("-")) {
+					logger = new AntLogger(world);
+				} else {
+					logger = AntLogger.toFile(world, Paths.get(dumpFile), dumpFile.endsWith(".gz"));
+				}
+				if (dumpTurns != null) {
+					logger.addTurns(dumpTurns);
+				}
+			} catch (IOException e) {
+				Main.fail("Error: could not open dump file: " + dumpFile);
+			} catch (IllegalArgumentException e) {
+				Main.fail("Error: " + e.getMessage());
+			}
+			world.setLogger(logger);
+		}
+		DumpVerifier verifier = null;
+		int turns = 0;
+		if (verifyFile != null) {
+			try {
+				verifier = new DumpVerifier(Paths.get(verifyFile));
+				turns = verifier.getLastRound();
+				logger = new AntLogger(world, verifier);
+				if (dumpTurns != null) {
+					logger.addTurns(dumpTurns);
+				}
+			} catch (IOException e) {
+				Main.fail("Error: could not read reference dump: " + verifyFile);
+			} catch (IllegalArgumentException e) {
+				Main.fail("Error: " + e.getMessage());
+			}
+			if (turns < 0) {
+				Main.fail("Error: no rounds in reference dump: " + verifyFile);
+			}
+			world.setLogger(logger);
+		}
+		if (replayFile != null) {
+			try {
+				world.setRecorder(new ReplayWriter(Paths.get(replayFile), ReplayWriter.KEYFRAME_INTERVAL, recordStates));
+			} catch (IOException e) {
+				Main.fail("Error: could not open replay file: " + replayFile);
+			}
+		}
+		
+		if (verifier != null) {
+			try {
+				GameResult result = world.runHeadless(turns);
+				logger.close();
+				System.out.println("Dump matches reference: " + verifier.getMatched() + " bytes to round " + turns);
+				System.out.println(result);
+			} catch (UncheckedIOException e) {
+				Main.fail(e.getCause() instanceof DumpMismatchException ? e.getCause().getMessage()
+						: "Error: could not read reference dump: " + verifyFile);
+			}
+			return;
+		}
+		
+		GameResult result = world.runHeadless();
+		if (logger != null && dumpFile.equals("-")) {
+			logger.flush();
+			System.err.println(result);
+			return;
+		}
+		if (logger != null) {
+			logger.close();
+		}
+		System.out.println(result);
+	}
+}
@@ -0,0 +1,103 @@
+package program;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import world.LockstepRunner;
+import world.World;
+import ai.StateMachine;
+
+/**
+ * Command line driver for checking the compiled brains against the State_* objects, in lockstep, on any number of maps.
+ * Usage: LockstepMain red-brain black-brain [seed] world-file...
+ *
+ * Each map is played for a whole game twice at once, see LockstepRunner, stopping at the first turn after
+ * which the two differ and listing every difference. The maps are checked in parallel, one per processor.
+ * The exit status is 1 if any map differs, or on any error, which is reported on standard error.
+ * @author JOH
+ * @version 2
+ */
+public class LockstepMain {
+
+	private static final String USAGE = "Usage: LockstepMain red-brain black-brain [seed] world-file...";
+
+	/**
+	 * Checks every map and prints what was found.
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 3) {
+			Main.fail(USAGE);
+		}
+		final StateMachine redBrain = StateMachine.newInstance(args[0]);
+		if (redBrain == null) {
+			Main.fail("Error: could not load brain: " + args[0]);
+		}
+		final StateMachine blackBrain = StateMachine.newInstance(args[1]);
+		if (blackBrain == null) {
+			Main.fail("Error: could not load brain: " + args[1]);
+		}
+		long seed = RandGenerator.DEFAULT_SEED;
+		int next = 2;
+		try {
+			seed = Long.parseLong(args[next]);
+			next++;
+		} catch (NumberFormatException e) {
+			//	No seed; this is the first map
+		}
+		if (args.length == next) {
+			Main.fail(USAGE);
+		}
+
+		long startTime = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		ArrayList<Future<LockstepRunner>> checks = new ArrayList<>();
+		for (int k = next; k < args.length; k++) {
+			final World map = World.parseWorld(args[k]);
+			if (map == null) {
+				Main.fail("Error: could not load world: " + args[k]);
+			}
+			map.setSeed(seed);
+			map.setRedBrain(args[0], redBrain);
+			map.setBlackBrain(args[1], blackBrain);
+			checks.add(executor.submit(new Callable<LockstepRunner>() {
+				public LockstepRunner call() {
+					LockstepRunner runner = new LockstepRunner(map.copy(), map.copy());
+					runner.run();
+					return runner;
+				}
+			}));
+		}
+
+		boolean allSame = true;
+		try {
+			for (int k = 0; k < checks.size(); k++) {
+				LockstepRunner runner = checks.get(k).get();
+				String file = args[next + k];
+				if (runner.getDifferences().isEmpty()) {
+					System.out.println(file + ": same for " + runner.getTurn() + " turns");
+				} else {
+					allSame = false;
+					System.out.println(file + ": differs after turn " + runner.getTurn() + " (reference / compiled)");
+					for (String difference : runner.getDifferences()) {
+						System.out.println("  " + difference);
+					}
+				}
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			Main.fail("Error: " + (e.getCause() == null ? e : e.getCause()));
+		} finally {
+			executor.shutdownNow();
+		}
+		System.out.println("Checked " + checks.size() + " maps in " + (System.nanoTime() - startTime) / 1000000 + "ms");
+		if (!allSame) {
+			System.exit(1);
+		}
+	}
+}
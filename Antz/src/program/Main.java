@@ -6,7 +6,7 @@ import javax.swing.UIManager.LookAndFeelInfo;
 /**
  * Test driver. 
  * @author JOH
- * @version 1
+ * @version 2
  */
 public class Main {
 	
@@ -18,15 +18,14 @@ public class Main {
 	public static void main(String[] args)
 	{
 		setNimbusLookAndFeel();
-		//	Remember to set the seed
-		RandGenerator.setSeed(12345);
+		//	Each World seeds its own RNG (RandGenerator.DEFAULT_SEED unless told otherwise)
 		new GameManager();
 	}
 
 	/**
 	 * If possible, sets the Nimbus L&F.
 	 */
-	private static void setNimbusLookAndFeel() {
+	static void setNimbusLookAndFeel() {
 		try {
 		    for (LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
 		        if ("Nimbus".equals(info.getName())) {
@@ -49,4 +48,14 @@ public class Main {
 		System.out.println(message);
 		System.exit(0);
 	}
+	
+	/**
+	 * Prints an error message to standard error and exits with a failure status.
+	 * For the command line drivers, so that scripts running them can tell a failed run.
+	 * @param message the message to print
+	 */
+	static void fail(String message) {
+		System.err.println(message);
+		System.exit(1);
+	}
 }
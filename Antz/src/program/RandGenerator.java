@@ -2,26 +2,41 @@ package program;
 
 /**
  * Implements a pseudo-RNG to customer specification.
+ * Each game owns its own generator so that games running side by side stay deterministic.
  * @author JOH
- * @version 0.2
+ * @version 0.4
  *
  */
 public class RandGenerator {
 
-	private static long seed = 0;		//	The sequence of random number seeds
+	public static final long DEFAULT_SEED = 12345;		//	The seed given in the customer spec
+	
+	private long seed = 0;		//	The sequence of random number seeds
+	private long draws = 0;		//	Numbers drawn since the seed was set, so a replay can draw as many
 	
 	/**
 	 * Constructor.
 	 * 
+	 * @param initialSeed the initial seed for the RNG
+	 */
+	public RandGenerator(long initialSeed)
+	{
+		setSeed(initialSeed);
+	}
+	
+	/**
+	 * Restarts the sequence from a new seed.
+	 * 
 	 * @param newSeed the initial seed for the RNG
 	 */
-	public static void setSeed(long newSeed)
+	public void setSeed(long newSeed)
 	{
-		RandGenerator.seed = newSeed;
+		seed = newSeed;
+		draws = 0;
 		//	Add the first three values
 		for (int i = 1; i < 4; i++)
 		{
-			RandGenerator.seed = RandGenerator.seed * 22695477 + 1;
+			seed = seed * 22695477 + 1;
 		}
 	}
 	
@@ -29,19 +44,39 @@ public class RandGenerator {
 	 * Gets the value of the seed.
 	 * @return
 	 */
-	public static long getSeed()
+	public long getSeed()
 	{
 		return seed;
 	}
 	
+	/**
+	 * Puts the generator back to a point in its sequence, as given by getSeed(), as a replay does at a keyframe.
+	 * Unlike setSeed() the seed is taken as it is.
+	 * @param seed the seed
+	 */
+	public void restoreSeed(long seed)
+	{
+		this.seed = seed;
+	}
+	
+	/**
+	 * Gets how many numbers have been drawn since the seed was set.
+	 * @return the number of draws
+	 */
+	public long getDraws()
+	{
+		return draws;
+	}
+	
 	/**
 	 * Returns a new pseudo-random integer between 0 and n-1 inclusive.
 	 * @param n the range of the number to generate
 	 * @return the random number
 	 */
-	public static int randomInt(int n)
+	public int randomInt(int n)
 	{
 		seed = seed * 22695477 + 1;
+		draws++;
 
 		long x = seed / 65536 % 16384;
 
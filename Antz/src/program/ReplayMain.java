@@ -0,0 +1,44 @@
+package program;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import world.ReplayReader;
+import world.World;
+
+/**
+ * Driver for watching a recorded game on the gameplay screen, without running the brains.
+ * Usage: ReplayMain replay-file [turn]
+ * The recording starts from the given turn, or from the start; the timeline on screen moves to any other.
+ * @author JOH
+ * @version 2
+ */
+public class ReplayMain {
+
+	/**
+	 * Opens the recording and shows it.
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 1 && args.length != 2) {
+			Main.error("Usage: ReplayMain replay-file [turn]");
+		}
+		Main.setNimbusLookAndFeel();
+		ReplayReader replay = null;
+		try {
+			replay = ReplayReader.open(Paths.get(args[0]));
+		} catch (IOException e) {
+			Main.error("Error: could not read replay: " + args[0] + " (" + e.getMessage() + ")");
+		}
+		World world = replay.createWorld();
+		if (args.length == 2) {
+			try {
+				world.seekReplay(Integer.parseInt(args[1]));
+			} catch (NumberFormatException e) {
+				Main.error("Error: turn must be a number: " + args[1]);
+			}
+		}
+		world.beginReplay(replay);
+	}
+}
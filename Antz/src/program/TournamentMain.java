@@ -0,0 +1,91 @@
+package program;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import world.World;
+import ai.StateMachine;
+
+/**
+ * Command line driver for playing a knock-out tournament without any GUI, see TournamentRunner.
+ * Usage: TournamentMain world-file brain-file... [-seed seed] [-j matches] [-replays dir [-nostates]]
+ *
+ * Every player is named by its brain file. With -j at most that many matches are played at once,
+ * one per processor by default. With -replays every game is recorded in the directory, made if need be,
+ * named by its players and seed; with -nostates too, without every change of ant state, in about a
+ * seventh of the space. Errors are reported on standard error, with an exit status of 1.
+ * @author JOH
+ * @version 4
+ */
+public class TournamentMain {
+
+	private static final String USAGE = "Usage: TournamentMain world-file brain-file... [-seed seed] [-j matches] [-replays dir [-nostates]]";
+
+	/**
+	 * Plays the tournament and prints each round and the winner.
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 3) {
+			Main.fail(USAGE);
+		}
+		long seed = RandGenerator.DEFAULT_SEED;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		Path replayDirectory = null;
+		boolean recordStates = true;
+		LinkedHashMap<String, StateMachine> brains = new LinkedHashMap<>();
+		for (int next = 1; next < args.length; next++) {
+			try {
+				if (args[next].equals("-seed") && args.length > next + 1) {
+					seed = Long.parseLong(args[++next]);
+				} else if (args[next].equals("-j") && args.length > next + 1) {
+					parallelism = Integer.parseInt(args[++next]);
+				} else if (args[next].equals("-replays") && args.length > next + 1) {
+					replayDirectory = Paths.get(args[++next]);
+				} else if (args[next].equals("-nostates")) {
+					recordStates = false;
+				} else if (args[next].startsWith("-")) {
+					Main.fail(USAGE);
+				} else {
+					StateMachine brain = StateMachine.newInstance(args[next]);
+					if (brain == null) {
+						Main.fail("Error: could not load brain: " + args[next]);
+					}
+					brains.put(args[next], brain);
+				}
+			} catch (NumberFormatException e) {
+				Main.fail("Error: not a number: " + args[next]);
+			}
+		}
+		if (brains.size() < 2 || parallelism < 1) {
+			Main.fail(USAGE);
+		}
+		World world = World.parseWorld(args[0]);
+		if (world == null) {
+			Main.fail("Error: could not load world: " + args[0]);
+		}
+		world.setSeed(seed);
+		if (replayDirectory != null) {
+			try {
+				Files.createDirectories(replayDirectory);
+			} catch (IOException e) {
+				Main.fail("Error: could not make replay directory: " + replayDirectory);
+			}
+		}
+
+		long startTime = System.nanoTime();
+		TournamentRunner runner = new TournamentRunner(world, brains, parallelism);
+		runner.setReplayDirectory(replayDirectory, recordStates);
+		String winner = runner.play();
+		List<List<String>> rounds = runner.getRounds();
+		for (int r = 0; r + 1 < rounds.size(); r++) {
+			System.out.println("Round " + (r + 1) + ": " + rounds.get(r));
+		}
+		System.out.println("Winner: " + winner + " in " + (System.nanoTime() - startTime) / 1000000 + "ms");
+	}
+}
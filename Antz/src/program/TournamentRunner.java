@@ -0,0 +1,201 @@
+package program;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import world.GameResult;
+import world.ReplayWriter;
+import world.World;
+import ai.StateMachine;
+
+/**
+ * Plays a knock-out tournament without any GUI, running the matches of each round in parallel.
+ * 
+ * Players are paired at random. Every pairing in a round is an independent job with its own
+ * copy of the world; the winners go through to the next round in bracket order until one player is left.
+ * Any odd player out gets a bye and goes first in the next round, so the same player never gets a bye twice running.
+ * 
+ * A match is pairs of games, one as each color, until one player has won more games, but never more than
+ * MAX_PAIRS pairs, so evenly matched players cannot hold up the tournament. A match still level after that
+ * goes to the player who took more food home over all its games, and if that is level too, to the player
+ * who was red in its first game if the tournament's seed is even, or black if it is odd.
+ * See TournamentMain for running one from the command line.
+ * If given a replay directory, every game is recorded there, to be watched again with ReplayMain.
+ * @author JOH
+ * @version 3
+ */
+public class TournamentRunner {
+
+	private World map;								//	The world every match is played on
+	private Map<String, StateMachine> brains;		//	The players, identified by name
+	private int parallelism;						//	Maximum number of matches played at once
+	private ArrayList<List<String>> rounds;			//	The players in each round played so far
+	private Path replayDirectory;					//	Where every game is recorded; null for no recording
+	private boolean recordStates;					//	If false, replays hold ant states only at keyframes
+	
+	private static final int MAX_PAIRS = 5;			//	Pairs of games played in a match before a tie is broken
+	
+	/**
+	 * Constructor.
+	 * @param map the world to play on; it is copied for every match and never played on itself
+	 * @param brains the players, identified by name
+	 * @param parallelism the maximum number of matches to play at once
+	 */
+	public TournamentRunner(World map, Map<String, StateMachine> brains, int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be at least 1");
+		this.map = map;
+		this.brains = brains;
+		this.parallelism = parallelism;
+		this.rounds = new ArrayList<>();
+	}
+	
+	/**
+	 * Plays the whole tournament.
+	 * @return the name of the winner, or null if there are fewer than two players
+	 */
+	public String play() {
+		if (brains.size() < 2)
+			return null;
+		ArrayList<String> players = new ArrayList<>(brains.keySet());
+		Collections.shuffle(players);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			while (players.size() > 1) {
+				rounds.add(players);
+				players = playRound(executor, players);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		rounds.add(players);
+		return players.get(0);
+	}
+	
+	/**
+	 * Plays every match of one round and returns the players going through.
+	 * @param executor the executor to play the matches on
+	 * @param players the players in this round, paired off in order
+	 * @return the players in the next round
+	 */
+	private ArrayList<String> playRound(ExecutorService executor, List<String> players) {
+		ArrayList<Future<String>> matches = new ArrayList<>();
+		for (int i = 0; i + 1 < players.size(); i += 2) {
+			matches.add(executor.submit(new Match(players.get(i), players.get(i + 1))));
+		}
+		
+		ArrayList<String> winners = new ArrayList<>();
+		//	Odd player out goes straight through, first in line so that another player has the next bye
+		if (players.size() % 2 == 1) {
+			winners.add(players.get(players.size() - 1));
+		}
+		for (Future<String> match : matches) {
+			try {
+				winners.add(match.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Tournament interrupted", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Match failed", e.getCause());
+			}
+		}
+		return winners;
+	}
+	
+	/**
+	 * Sets the directory every game is recorded in, as red_vs_black_seed.antr.
+	 * @param replayDirectory the directory, or null for no recording
+	 * @param recordStates true to record every change of state, false for much smaller replays (see ReplayWriter)
+	 */
+	public void setReplayDirectory(Path replayDirectory, boolean recordStates) {
+		this.replayDirectory = replayDirectory;
+		this.recordStates = recordStates;
+	}
+	
+	/**
+	 * Returns the players in each round played so far; the last round holds only the winner.
+	 * @return the rounds
+	 */
+	public List<List<String>> getRounds() {
+		return rounds;
+	}
+	
+	/**
+	 * A single match between two players, played on its own copy of the world.
+	 * As in GameManager, pairs of games (one as each color) are played until one player has won more games,
+	 * up to MAX_PAIRS pairs; a tie is then broken on food and then on the seed.
+	 */
+	private class Match implements Callable<String> {
+		
+		private String redName, blackName;
+		
+		/**
+		 * Constructor.
+		 * @param redName the player who is red in the first game of each pair
+		 * @param blackName the player who is black in the first game of each pair
+		 */
+		public Match(String redName, String blackName) {
+			this.redName = redName;
+			this.blackName = blackName;
+		}
+
+		@Override
+		public String call() throws IOException {
+			World world = map.copy();
+			long seed = map.getSeed();
+			int redWins = 0, blackWins = 0;
+			int redFood = 0, blackFood = 0;
+			for (int pair = 0; pair < MAX_PAIRS && redWins == blackWins; pair++) {
+				//	Vary the seed so a drawn pair is not simply replayed
+				world.setSeed(seed++);
+				
+				world.setRedBrain(redName, brains.get(redName));
+				world.setBlackBrain(blackName, brains.get(blackName));
+				record(world, redName, blackName);
+				GameResult result = world.runHeadless();
+				redWins += result.getRedScore() > result.getBlackScore() ? 1 : 0;
+				blackWins += result.getBlackScore() > result.getRedScore() ? 1 : 0;
+				redFood += result.getRedScore();
+				blackFood += result.getBlackScore();
+				
+				world.swapBrains();
+				record(world, blackName, redName);
+				result = world.runHeadless();
+				redWins += result.getBlackScore() > result.getRedScore() ? 1 : 0;
+				blackWins += result.getRedScore() > result.getBlackScore() ? 1 : 0;
+				redFood += result.getBlackScore();
+				blackFood += result.getRedScore();
+			}
+			if (redWins != blackWins)
+				return redWins > blackWins ? redName : blackName;
+			if (redFood != blackFood)
+				return redFood > blackFood ? redName : blackName;
+			return map.getSeed() % 2 == 0 ? redName : blackName;
+		}
+		
+		/**
+		 * Records the next game on the world, if there is a replay directory.
+		 * @param world the world
+		 * @param red the red player in the game
+		 * @param black the black player in the game
+		 * @throws IOException if the replay file cannot be opened
+		 */
+		private void record(World world, String red, String black) throws IOException {
+			if (replayDirectory != null) {
+				//	Players are named by their brain files; only the file names go in the replay's name
+				String name = Paths.get(red).getFileName() + "_vs_" + Paths.get(black).getFileName() + "_" + world.getSeed() + ".antr";
+				world.setRecorder(new ReplayWriter(replayDirectory.resolve(name), ReplayWriter.KEYFRAME_INTERVAL, recordStates));
+			}
+		}
+	}
+}
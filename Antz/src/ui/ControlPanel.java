@@ -3,18 +3,23 @@ package ui;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSlider;
 import javax.swing.event.ChangeEvent;
+import javax.swing.border.TitledBorder;
 import javax.swing.event.ChangeListener;
+import world.ReplayReader;
 import world.World;
 
 /**
  * THis class contains all the game screen controls.
+ * When a recording is shown, a timeline titled with the turn takes the place of the turn label and lets
+ * the viewer drag to any turn of it.
  * @author JOH
- * @version 1
+ * @version 3
  */
 @SuppressWarnings("serial")
 public class ControlPanel extends JPanel implements ActionListener, ChangeListener{
@@ -22,6 +27,9 @@ public class ControlPanel extends JPanel implements ActionListener, ChangeListen
 	private World world;
 	private JButton pauseButton, playButton;
 	private JLabel currentTurn;
+	private JSlider timeline;					//	The turn of the recording on display; null when playing a game
+	private TitledBorder timelineTitle;			//	The turn on display, shown above the timeline
+	private boolean showingTurn;				//	Set while the timeline is moved to the turn on display, rather than by the viewer
 	static final int MINSPEED = 0;
 	static final int MAXSPEED = 10;
 	
@@ -45,9 +53,18 @@ public class ControlPanel extends JPanel implements ActionListener, ChangeListen
 		buttons.add(playButton);
 		currentTurn = new JLabel("Turn: 0");
 		JPanel turn = new JPanel();
-		turn.add(currentTurn);
+		ReplayReader replay = world.getReplay();
+		if (replay != null) {
+			timeline = new JSlider(JSlider.HORIZONTAL, 0, replay.getLastTurn(), 0);
+			timelineTitle = BorderFactory.createTitledBorder(currentTurn.getText());
+			timeline.setBorder(timelineTitle);
+			timeline.setToolTipText(currentTurn.getText());
+			timeline.addChangeListener(this);
+			turn.add(timeline);
+		} else
+			turn.add(currentTurn);
 		temp.add(turn);
-
+
 		JPanel temp2 = new JPanel();
 		JSlider speedSlider = new JSlider(JSlider.HORIZONTAL, MINSPEED, MAXSPEED, MAXSPEED);
 		speedSlider.addChangeListener(this);
@@ -73,16 +90,37 @@ public class ControlPanel extends JPanel implements ActionListener, ChangeListen
 	}
 
 	/**
-	 * Listener for speed slider changes.
+	 * Listener for speed slider and timeline changes.
 	 * @param arg0
 	 */
 	@Override
 	public void stateChanged(ChangeEvent e) {
 		JSlider slider = (JSlider)e.getSource();
-		if (slider.getValueIsAdjusting())
+		if (slider == timeline) {
+			if (!showingTurn)
+				world.seekReplay(timeline.getValue());
+		} else if (slider.getValueIsAdjusting())
 			world.setSleepAmount((MAXSPEED - slider.getValue()) * 10);
 	}
 
+	/**
+	 * Shows the turn on display, moving the timeline to it unless the viewer is dragging it.
+	 * @param turn the turn
+	 */
+	public void showTurn(int turn) {
+		currentTurn.setText("Turn: " + turn);
+		if (timeline != null) {
+			timelineTitle.setTitle(currentTurn.getText());
+			timeline.setToolTipText(currentTurn.getText());
+			timeline.repaint();
+			if (!timeline.getValueIsAdjusting()) {
+				showingTurn = true;
+				timeline.setValue(turn);
+				showingTurn = false;
+			}
+		}
+	}
+
 	/**
 	 * Gets the current turn.
 	 * @return
@@ -6,6 +6,8 @@ import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.MouseWheelEvent;
@@ -15,12 +17,18 @@ import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.Timer;
+import world.TurnSnapshot;
 import world.World;
 
 /**
  * This class draws the main game screen UI.
+ * 
+ * The display runs at its own fixed frame rate, independent of the game loop: each frame takes
+ * the latest snapshot the world has published, and any turns played in between are never drawn.
+ * Everything on screen is drawn from that snapshot, never from the world while it is being played.
  * @author JOH
- * @version 1
+ * @version 2
  */
 @SuppressWarnings("serial")
 public class GameplayScreen extends JFrame {
@@ -28,8 +36,11 @@ public class GameplayScreen extends JFrame {
 	private MapPanel mapPanel;
 	private ScorePanel scorePanel;
 	private ControlPanel controlPanel;
+	private MiniMapPanel miniMap;
+	private Timer frameTimer;				//	Fires on the EDT once per frame
 	
 	private final World world;
+	private static final int FRAMES_PER_SECOND = 30;
 	
 	/**
 	 * Constructor.
@@ -75,7 +86,12 @@ public class GameplayScreen extends JFrame {
 	    controls.add(markersCheckbox);
 	    
 	    mainPanel.add("South", controls);
-	    mainPanel.add("East", new JPanel());
+	    
+	    //	Add the minimap, top right
+	    JPanel eastPanel = new JPanel(new BorderLayout());
+	    miniMap = new MiniMapPanel(world, mapPanel, scrollPane.getViewport());
+	    eastPanel.add("North", miniMap);
+	    mainPanel.add("East", eastPanel);
 	    mainPanel.add("West", new JPanel());
 	    
 	    //  final initialization
@@ -85,6 +101,24 @@ public class GameplayScreen extends JFrame {
 	    this.setLocationRelativeTo(null);
 	    this.setVisible(true); 
 	    this.setDefaultCloseOperation(EXIT_ON_CLOSE);
+	    
+	    //	Start drawing frames
+	    frameTimer = new Timer(1000 / FRAMES_PER_SECOND, new ActionListener() {
+	    	public void actionPerformed(ActionEvent e) {
+	    		renderFrame();
+	    	}
+	    });
+	    frameTimer.start();
+	}
+	
+	/**
+	 * Draws a frame, if the world has published a snapshot since the last one.
+	 */
+	private void renderFrame()
+	{
+		if (world.takeSnapshot()) {
+			update();
+		}
 	}
 	
 	/**
@@ -92,13 +126,27 @@ public class GameplayScreen extends JFrame {
 	 */
 	public void update()
 	{
+		TurnSnapshot snapshot = world.getSnapshot();
+		if (snapshot == null)
+			return;
 		mapPanel.repaint();
-		scorePanel.redScore.setText("Score: " + world.getRedScore());
-		scorePanel.blackScore.setText("Score: " + world.getBlackScore());
+		scorePanel.redScore.setText("Score: " + snapshot.getRedScore());
+		scorePanel.blackScore.setText("Score: " + snapshot.getBlackScore());
 		scorePanel.scoreRatio.repaint();
-		controlPanel.getCurrentTurn().setText("Turn: " + world.getTurn());
+		miniMap.repaint();
+		controlPanel.showTurn(snapshot.getTurn());
 	}	
 	
+	/**
+	 * Stops drawing frames as well as closing the screen.
+	 */
+	@Override
+	public void dispose()
+	{
+		frameTimer.stop();
+		super.dispose();
+	}
+	
 	/**
 	 * Scroll Pane listener (for mouse wheel zoom);
 	 * @author JOH
@@ -119,26 +167,22 @@ public class GameplayScreen extends JFrame {
 		@Override
 		public void mouseWheelMoved(MouseWheelEvent e) {
 			// Save the previous coordinates
-			int oldZoom = mapPanel.getZoomLevel();
+			Dimension oldSize = mapPanel.getMapSize();
 			Rectangle oldView = scrollPane.getViewport().getViewRect();
 
-			// resize the panel for the new zoom
+			// step through the zoom levels, closest to furthest, one per wheel notch
 			int wheel = e.getWheelRotation();
-			mapPanel.setZoomLevel(mapPanel.getZoomLevel() + wheel);
-			if (mapPanel.getZoomLevel() < 1) {
-				mapPanel.setZoomLevel(1);
-			} else if (mapPanel.getZoomLevel() > 2) {
-				if (wheel > 0)
-					mapPanel.setZoomLevel(4);
-				else
-					mapPanel.setZoomLevel(2);
-			}
-			// calculate the new view position - this isn't perfect
-			mapPanel.setPreferredSize(new Dimension(world.getWidth() * MapPanel.imageWidth / mapPanel.getZoomLevel(), (int)(world.getHeight() * MapPanel.imageHeight / mapPanel.getZoomLevel() / 1.333)));
-			int newZoom = mapPanel.getZoomLevel();
+			int level = 0;
+			while (MapPanel.ZOOM_LEVELS[level] != mapPanel.getZoomLevel())
+				level++;
+			level = Math.max(0, Math.min(MapPanel.ZOOM_LEVELS.length - 1, level + Integer.signum(wheel)));
+			mapPanel.setZoomLevel(MapPanel.ZOOM_LEVELS[level]);
+			// resize the panel and keep the same point in the middle of the view
+			Dimension newSize = mapPanel.getMapSize();
+			mapPanel.setPreferredSize(newSize);
 			Point newViewPos = new Point();
-			newViewPos.x = Math.max(0, (oldView.x + oldView.width / 2) * oldZoom / newZoom - oldView.width / 2);
-			newViewPos.y = Math.max(0, (oldView.y + oldView.height / 2) * oldZoom / newZoom - oldView.height / 2);
+			newViewPos.x = Math.max(0, (int) ((long) (oldView.x + oldView.width / 2) * newSize.width / oldSize.width) - oldView.width / 2);
+			newViewPos.y = Math.max(0, (int) ((long) (oldView.y + oldView.height / 2) * newSize.height / oldSize.height) - oldView.height / 2);
 			scrollPane.getViewport().setViewPosition(newViewPos);
 			//	Redraw the panel
 			mapPanel.revalidate();	
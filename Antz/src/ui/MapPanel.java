@@ -3,8 +3,8 @@ package ui;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.event.MouseInputAdapter;
-import program.Ant;
 import world.Position;
+import world.TurnSnapshot;
 import world.World;
 import enums.E_Color;
 import java.awt.*;
@@ -12,11 +12,21 @@ import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Represents the map panel within the GameplayScreen.
+ * 
+ * The terrain never changes during a game, so it is drawn once per zoom level into a terrain layer.
+ * A frame buffer holds the terrain with the food, markers and ants on top; each repaint only redraws
+ * the cells in view that are marked as changed since they were last drawn, then copies 
+ * the part of the frame in view to the screen. Maps too large to buffer at the current zoom level 
+ * are drawn directly, a cell at a time, but only the cells in view.
+ * Food, markers and ants are always drawn from the World's snapshot on display, never from the live game.
+ * 
+ * The overview zoom level skips the images altogether and shows the map's MapRaster, a few pixels per cell.
  * @author JOH
- * @version 1
+ * @version 2
  */
 @SuppressWarnings("serial")
 public class MapPanel extends JLabel{
@@ -25,6 +35,24 @@ public class MapPanel extends JLabel{
 	private int zoomLevel;
 	private boolean drawMarkers;
 	
+	//	Images and font for the current zoom level
+	private BufferedImage rocky, clear, anthill;
+	private BufferedImage[][] ants;
+	private Font font;
+	
+	private BufferedImage terrainLayer;			//	The terrain of the whole map at the current zoom level, or null if not drawn yet
+	private BufferedImage frame;				//	The terrain layer with food, markers and ants drawn on top
+	private int[] drawnFor;						//	The turn each cell was last drawn into the frame for
+	private int drawnGame;						//	The game the frame was drawn for
+	
+	private MapRaster raster;					//	One pixel per cell, for the overview zoom level
+	
+	private static final int MAX_BUFFER_PIXELS = 16 * 1024 * 1024;	//	Larger maps are drawn without buffers
+	
+	public static final int OVERVIEW = 8;		//	Zoom level for the overview, drawn from the raster
+	private static final int OVERVIEW_CELL = 3;	//	Pixels per cell at the overview zoom level
+	public static final int[] ZOOM_LEVELS = {1, 2, 4, OVERVIEW};	//	From closest to furthest
+	
 	private static BufferedImage rocky_big, clear_big, anthill_big,
 						rocky_small, clear_small, anthill_small,
 						rocky_tiny, clear_tiny, anthill_tiny;
@@ -56,6 +84,7 @@ public class MapPanel extends JLabel{
 	{
 		super();
 		this.world = world;
+		raster = new MapRaster(world);
 		zoomLevel = 4;
 		this.setPreferredSize(new Dimension(world.getWidth() * 18 , world.getHeight() *21));
 		drawMarkers = false;
@@ -93,6 +122,7 @@ public class MapPanel extends JLabel{
 			e.printStackTrace();
 			System.out.println("Couldn't load image.");
 		}
+		selectImages();
 	}
 
 	/**
@@ -102,106 +132,364 @@ public class MapPanel extends JLabel{
 		
 		//	Cast as G2D
 		Graphics2D g2d = (Graphics2D) g;
+		Rectangle clip = g2d.getClipBounds();
+		if (clip == null)
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
 		
 		//	clear screen
 		g2d.setColor(Color.BLACK);
-		g2d.fillRect(0, 0, getWidth(), getHeight());	
-		//	Choose image sizes based on zoom level
-		BufferedImage rocky = null, clear = null, anthill = null;
-		BufferedImage[][] ants = null;
+		g2d.fillRect(clip.x, clip.y, clip.width, clip.height);
+		g2d.setFont(font);
+		
+		//	Nothing to show until the first snapshot
+		TurnSnapshot snapshot = world.getSnapshot();
+		if (snapshot == null)
+			return;
+		
+		if (zoomLevel == OVERVIEW) {
+			raster.update(snapshot);
+			g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+			g2d.drawImage(raster.getImage(), 0, 0, mapWidth(), mapHeight(), null);
+			return;
+		}
+		
+		if (!canBuffer()) {
+			//	Too big to buffer; draw each cell in view straight to the screen
+			for (int x = firstColumn(clip); x <= lastColumn(clip); x++) {
+				for (int y = firstRow(clip); y <= lastRow(clip); y++) {
+					drawTerrain(g2d, x, y);
+					drawContents(g2d, snapshot, x, y);
+				}
+			}
+			return;
+		}
+		
+		if (frame == null || snapshot.getGame() != drawnGame) {
+			drawFrame(snapshot);
+		} else {
+			updateFrame(clip, snapshot);
+		}
+		Rectangle shown = clip.intersection(new Rectangle(0, 0, frame.getWidth(), frame.getHeight()));
+		if (!shown.isEmpty()) {
+			g2d.drawImage(frame, shown.x, shown.y, shown.x + shown.width, shown.y + shown.height, 
+					shown.x, shown.y, shown.x + shown.width, shown.y + shown.height, null);
+		}
+	}
+	
+	/**
+	 * Chooses image sizes and font based on the zoom level.
+	 */
+	private void selectImages() {
 		switch (zoomLevel) {
 		case 1: 
 			rocky = rocky_big;
 			clear = clear_big;
 			anthill = anthill_big;
 			ants = bigAnts;
-			g2d.setFont(bigFont);
+			font = bigFont;
 			break;
 		case 2:
 			rocky = rocky_small;
 			clear = clear_small;
 			anthill = anthill_small;
 			ants = smallAnts;
-			g2d.setFont(smallFont);
+			font = smallFont;
 			break;
 		case 4:
+		case OVERVIEW:
 			rocky = rocky_tiny;
 			clear = clear_tiny;
 			anthill = anthill_tiny;
 			ants = tinyAnts;
-			g2d.setFont(tinyFont);
+			font = tinyFont;
 			break;
 		}
+	}
+	
+	/**
+	 * Returns true if the map is small enough at this zoom level to keep a terrain layer and frame for it.
+	 * @return true if buffers are used
+	 */
+	private boolean canBuffer() {
+		return (long) mapWidth() * mapHeight() <= MAX_BUFFER_PIXELS;
+	}
+	
+	/**
+	 * Draws the terrain layer and a full frame from scratch.
+	 * @param snapshot the snapshot to show
+	 */
+	private void drawFrame(TurnSnapshot snapshot) {
+		terrainLayer = createLayer();
+		Graphics2D tg = terrainLayer.createGraphics();
+		tg.setColor(Color.BLACK);
+		tg.fillRect(0, 0, terrainLayer.getWidth(), terrainLayer.getHeight());
+		for (int x = 0; x < world.getWidth(); x++) {
+			for (int y = 0; y < world.getHeight(); y++) {
+				drawTerrain(tg, x, y);
+			}
+		}
+		tg.dispose();
 		
-		//	Draw the map
-		for (int x = 0; x < world.getWidth() ; x++) {
+		frame = createLayer();
+		Graphics2D fg = frame.createGraphics();
+		fg.drawImage(terrainLayer, 0, 0, null);
+		fg.setFont(font);
+		for (int x = 0; x < world.getWidth(); x++) {
 			for (int y = 0; y < world.getHeight(); y++) {
-				//	The current cell position
-				Position pos = new Position(x, y);
-				//	Each odd-numbered row is staggered
-				int stagger;
-				if (y % 2 == 1)
-					stagger = (imageWidth / zoomLevel) / 2;
-				else
-					stagger = 0;
-				//	Window coordinates for this cell
-				int xPos = stagger + x * ((imageWidth / zoomLevel));
-				int yPos = y * (int)((imageHeight / zoomLevel / 1.333));
-				//	Draw underlying terrain
-				switch (world.getCellAt(pos).getTerrain())
-				{
-					case ROCKY:
-						g2d.drawImage(rocky, xPos, yPos, null);
-						break;
-					case CLEAR:
-						g2d.drawImage(clear, xPos, yPos , null);
-						break;
-					case BLACK_ANTHILL:
-						g2d.drawImage(anthill, xPos, yPos , null);
-						break;
-					case RED_ANTHILL:
-						g2d.drawImage(anthill, xPos, yPos, null);
-						break;
+				drawContents(fg, snapshot, x, y);
+			}
+		}
+		fg.dispose();
+		
+		drawnFor = new int[world.getWidth() * world.getHeight()];
+		Arrays.fill(drawnFor, snapshot.getTurn());
+		drawnGame = snapshot.getGame();
+	}
+	
+	/**
+	 * Redraws the cells in view that have changed since they were last drawn into the frame.
+	 * Each cell is restored from the terrain layer and then the contents of every cell overlapping it 
+	 * are drawn again, clipped to that cell, so neighbouring cells are left untouched.
+	 * @param clip the area in view
+	 * @param snapshot the snapshot to show
+	 */
+	private void updateFrame(Rectangle clip, TurnSnapshot snapshot) {
+		Graphics2D fg = null;
+		for (int x = firstColumn(clip); x <= lastColumn(clip); x++) {
+			for (int y = firstRow(clip); y <= lastRow(clip); y++) {
+				int i = y * world.getWidth() + x;
+				if (snapshot.changedIn(i) <= drawnFor[i])
+					continue;
+				if (fg == null) {
+					fg = frame.createGraphics();
+					fg.setFont(font);
 				}
-				//	Draw food particles if applicable
-				if (world.foodAt(pos) > 0) {
-					g2d.setColor(Color.YELLOW);
-					g2d.drawString("" + world.foodAt(pos), xPos + g2d.getFont().getSize() * .7f, yPos + g2d.getFont().getSize() * 1.2f);
+				int xPos = xPos(x, y), yPos = yPos(y);
+				int w = cellWidth(), h = cellHeight();
+				fg.setClip(xPos, yPos, w, h);
+				fg.drawImage(terrainLayer, xPos, yPos, xPos + w, yPos + h, xPos, yPos, xPos + w, yPos + h, null);
+				//	In the same order as a full frame
+				for (int nx = Math.max(0, x - 1); nx <= Math.min(world.getWidth() - 1, x + 1); nx++) {
+					for (int ny = Math.max(0, y - 1); ny <= Math.min(world.getHeight() - 1, y + 1); ny++) {
+						drawContents(fg, snapshot, nx, ny);
+					}
 				}
-				if (drawMarkers) {
-					//Draw black markers
-					if (world.getCellAt(pos).checkAnyMarker(E_Color.BLACK)) {		
-						for (int i = 0; i < 6; i++) {
-							g2d.setColor(blackMarkerColors[i]);
-							if (world.getCellAt(pos).checkMarker(E_Color.BLACK, i)) {
-								g2d.drawString(".", 
-										xPos + (markerOffsets[i].x + 40)/zoomLevel, 
-										yPos + (markerOffsets[i].y + 55)/zoomLevel);
-							}
-						}
+				drawnFor[i] = snapshot.getTurn();
+			}
+		}
+		if (fg != null)
+			fg.dispose();
+	}
+	
+	/**
+	 * Creates an image the size of the map at the current zoom level.
+	 * @return the image
+	 */
+	private BufferedImage createLayer() {
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		if (gc != null)
+			return gc.createCompatibleImage(mapWidth(), mapHeight());
+		return new BufferedImage(mapWidth(), mapHeight(), BufferedImage.TYPE_INT_RGB);
+	}
+	
+	/**
+	 * Throws away the terrain layer and frame, so they are drawn again on the next repaint.
+	 */
+	private void discardBuffers() {
+		terrainLayer = null;
+		frame = null;
+		drawnFor = null;
+	}
+	
+	/**
+	 * Draws the terrain of a cell.
+	 * @param g2d the graphics to draw with
+	 * @param x the x coordinate of the cell
+	 * @param y the y coordinate of the cell
+	 */
+	private void drawTerrain(Graphics2D g2d, int x, int y) {
+		int xPos = xPos(x, y), yPos = yPos(y);
+		switch (world.terrainAt(y * world.getWidth() + x))
+		{
+			case ROCKY:
+				g2d.drawImage(rocky, xPos, yPos, null);
+				break;
+			case CLEAR:
+				g2d.drawImage(clear, xPos, yPos , null);
+				break;
+			case BLACK_ANTHILL:
+				g2d.drawImage(anthill, xPos, yPos , null);
+				break;
+			case RED_ANTHILL:
+				g2d.drawImage(anthill, xPos, yPos, null);
+				break;
+		}
+	}
+	
+	/**
+	 * Draws the food, markers and ant in a cell.
+	 * @param g2d the graphics to draw with
+	 * @param snapshot the snapshot to show
+	 * @param x the x coordinate of the cell
+	 * @param y the y coordinate of the cell
+	 */
+	private void drawContents(Graphics2D g2d, TurnSnapshot snapshot, int x, int y) {
+		int i = y * world.getWidth() + x;
+		int xPos = xPos(x, y), yPos = yPos(y);
+		//	Draw food particles if applicable
+		int food = snapshot.foodAt(i);
+		if (food > 0) {
+			g2d.setColor(Color.YELLOW);
+			g2d.drawString("" + food, xPos + font.getSize() * .7f, yPos + font.getSize() * 1.2f);
+		}
+		if (drawMarkers) {
+			//Draw black markers
+			if (snapshot.checkAnyMarker(i, E_Color.BLACK)) {		
+				for (int m = 0; m < 6; m++) {
+					g2d.setColor(blackMarkerColors[m]);
+					if (snapshot.checkMarker(i, E_Color.BLACK, m)) {
+						g2d.drawString(".", 
+								xPos + (markerOffsets[m].x + 40)/zoomLevel, 
+								yPos + (markerOffsets[m].y + 55)/zoomLevel);
 					}
-				
-					//Draw red markers
-					if (world.getCellAt(pos).checkAnyMarker(E_Color.RED)) {
-						for (int i = 0; i < 6; i++) {
-							g2d.setColor(redMarkerColors[i]);
-							if (world.getCellAt(pos).checkMarker(E_Color.RED, i)) {
-								g2d.drawString(".", 
-										xPos + (markerOffsets[i].x + 20)/zoomLevel, 
-										yPos + (markerOffsets[i].y + 35)/zoomLevel);
-							}
-						}
+				}
+			}
+		
+			//Draw red markers
+			if (snapshot.checkAnyMarker(i, E_Color.RED)) {
+				for (int m = 0; m < 6; m++) {
+					g2d.setColor(redMarkerColors[m]);
+					if (snapshot.checkMarker(i, E_Color.RED, m)) {
+						g2d.drawString(".", 
+								xPos + (markerOffsets[m].x + 20)/zoomLevel, 
+								yPos + (markerOffsets[m].y + 35)/zoomLevel);
 					}
-				}//end of drawing markers
-				
-				//	Draw any ants
-				if (world.antAt(pos) != null) {
-					Ant ant = world.antAt(pos);
-					g2d.drawImage(ants[ant.getColor().ordinal()][ant.getDirection().ordinal()], xPos, yPos, null);
 				}
 			}
+		}//end of drawing markers
+		
+		//	Draw any ants
+		if (snapshot.isAnt(i)) {
+			g2d.drawImage(ants[snapshot.antColorAt(i).ordinal()][snapshot.antDirectionAt(i)], xPos, yPos, null);
 		}
 	}
+	
+	/**
+	 * Returns the window x coordinate of a cell.
+	 * @param x the x coordinate of the cell
+	 * @param y the y coordinate of the cell
+	 * @return the x coordinate in pixels
+	 */
+	private int xPos(int x, int y) {
+		//	Each odd-numbered row is staggered
+		int stagger = (y % 2 == 1) ? cellWidth() / 2 : 0;
+		return stagger + x * cellWidth();
+	}
+	
+	/**
+	 * Returns the window y coordinate of a row.
+	 * @param y the y coordinate of the row
+	 * @return the y coordinate in pixels
+	 */
+	private int yPos(int y) {
+		return y * rowHeight();
+	}
+	
+	/**
+	 * Returns the width of a cell image at the current zoom level.
+	 * @return the width in pixels
+	 */
+	private int cellWidth() {
+		return imageWidth / zoomLevel;
+	}
+	
+	/**
+	 * Returns the height of a cell image at the current zoom level.
+	 * @return the height in pixels
+	 */
+	private int cellHeight() {
+		return imageHeight / zoomLevel;
+	}
+	
+	/**
+	 * Returns the distance between rows at the current zoom level; rows overlap, as hexes do.
+	 * @return the distance in pixels
+	 */
+	private int rowHeight() {
+		return (int)((imageHeight / zoomLevel / 1.333));
+	}
+	
+	/**
+	 * Returns the width of the whole map at the current zoom level.
+	 * @return the width in pixels
+	 */
+	private int mapWidth() {
+		if (zoomLevel == OVERVIEW)
+			return world.getWidth() * OVERVIEW_CELL;
+		return world.getWidth() * cellWidth() + cellWidth() / 2;
+	}
+	
+	/**
+	 * Returns the height of the whole map at the current zoom level.
+	 * @return the height in pixels
+	 */
+	private int mapHeight() {
+		if (zoomLevel == OVERVIEW)
+			return world.getHeight() * OVERVIEW_CELL;
+		return (world.getHeight() - 1) * rowHeight() + cellHeight();
+	}
+	
+	/**
+	 * Returns the size of the whole map at the current zoom level.
+	 * @return the size in pixels
+	 */
+	public Dimension getMapSize() {
+		return new Dimension(mapWidth(), mapHeight());
+	}
+	
+	/**
+	 * Returns the overview of the map, shared with the minimap.
+	 * @return the raster
+	 */
+	public MapRaster getRaster() {
+		return raster;
+	}
+	
+	/**
+	 * Returns the first column with a cell in the given area.
+	 * @param area the area
+	 * @return the column
+	 */
+	private int firstColumn(Rectangle area) {
+		return Math.max(0, (area.x - cellWidth()) / cellWidth());
+	}
+	
+	/**
+	 * Returns the last column with a cell in the given area.
+	 * @param area the area
+	 * @return the column
+	 */
+	private int lastColumn(Rectangle area) {
+		return Math.min(world.getWidth() - 1, (area.x + area.width) / cellWidth());
+	}
+	
+	/**
+	 * Returns the first row with a cell in the given area.
+	 * @param area the area
+	 * @return the row
+	 */
+	private int firstRow(Rectangle area) {
+		return Math.max(0, (area.y - cellHeight()) / rowHeight());
+	}
+	
+	/**
+	 * Returns the last row with a cell in the given area.
+	 * @param area the area
+	 * @return the row
+	 */
+	private int lastRow(Rectangle area) {
+		return Math.min(world.getHeight() - 1, (area.y + area.height) / rowHeight());
+	}
 
 	/**
 	 * Returns the current zoom level.
@@ -216,7 +504,10 @@ public class MapPanel extends JLabel{
 	 * @param zoomLevel the zoomLevel to set
 	 */
 	public void setZoomLevel(int zoomLevel) {
+		if (zoomLevel != this.zoomLevel)
+			discardBuffers();
 		this.zoomLevel = zoomLevel;
+		selectImages();
 	}
 
 	/**
@@ -268,6 +559,9 @@ public class MapPanel extends JLabel{
 		} else {
 			drawMarkers = true;
 		}
+		//	Every cell with markers needs drawing again
+		discardBuffers();
+		repaint();
 	}
 
 	/**
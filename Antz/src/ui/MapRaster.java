@@ -0,0 +1,135 @@
+package ui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import world.TurnSnapshot;
+import world.World;
+import enums.E_Color;
+
+/**
+ * An overview of the map with one pixel per cell, written straight into the pixels of an image.
+ * 
+ * Each pixel shows the terrain, tinted by the food and the density of each color's markers, 
+ * or the color of the ant in the cell, as of the snapshot on display. Only cells marked as changed 
+ * since they were last written are written again, so even very large maps stay cheap to keep up to date. 
+ * Odd rows are not staggered.
+ * @author JOH
+ * @version 1
+ */
+public class MapRaster {
+
+	private World world;
+	private BufferedImage image;				//	width x height, one pixel per cell
+	private int[] pixels;						//	The image's own pixel array
+	private int[] drawnFor;						//	The turn each cell was last written for
+	private int drawnGame = -1;					//	The game the cells were written for
+	
+	private static final int ROCK = 0x505050, CLEAR = 0x6B8E23, RED_ANTHILL = 0xC06060, BLACK_ANTHILL = 0x606080;
+	private static final int FOOD = 0xFFD700, RED_MARKER = 0xFF8080, BLACK_MARKER = 0x80C0FF;
+	private static final int RED_ANT = 0xFF0000, BLACK_ANT = 0x000000;
+	
+	/**
+	 * Constructor.
+	 * @param world the world to show
+	 */
+	public MapRaster(World world) {
+		this.world = world;
+		image = new BufferedImage(world.getWidth(), world.getHeight(), BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		drawnFor = new int[pixels.length];
+		Arrays.fill(drawnFor, Integer.MIN_VALUE);
+	}
+	
+	/**
+	 * Writes every cell that has changed since it was last written.
+	 * @param snapshot the snapshot on display, or null if none yet
+	 */
+	public void update(TurnSnapshot snapshot) {
+		if (snapshot == null)
+			return;
+		if (snapshot.getGame() != drawnGame) {
+			Arrays.fill(drawnFor, Integer.MIN_VALUE);
+			drawnGame = snapshot.getGame();
+		}
+		for (int i = 0; i < pixels.length; i++) {
+			if (snapshot.changedIn(i) > drawnFor[i]) {
+				pixels[i] = colorOf(snapshot, i);
+				drawnFor[i] = snapshot.getTurn();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the image, as of the last update.
+	 * @return the image
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+	
+	/**
+	 * Works out the color of a cell.
+	 * @param snapshot the snapshot to show
+	 * @param i the index of the cell
+	 * @return the color as 0xRRGGBB
+	 */
+	private int colorOf(TurnSnapshot snapshot, int i) {
+		if (snapshot.isAnt(i))
+			return snapshot.antColorAt(i) == E_Color.RED ? RED_ANT : BLACK_ANT;
+		
+		int color;
+		switch (world.terrainAt(i))
+		{
+			case ROCKY: 
+				return ROCK;
+			case RED_ANTHILL:
+				color = RED_ANTHILL;
+				break;
+			case BLACK_ANTHILL:
+				color = BLACK_ANTHILL;
+				break;
+			default:
+				color = CLEAR;
+		}
+		//	Tint by marker density, then by food (up to 5 particles for full strength)
+		color = blend(color, RED_MARKER, markerCount(snapshot, i, E_Color.RED), 12);
+		color = blend(color, BLACK_MARKER, markerCount(snapshot, i, E_Color.BLACK), 12);
+		return blend(color, FOOD, Math.min(snapshot.foodAt(i), 5), 5);
+	}
+	
+	/**
+	 * Counts the markers of a color in a cell.
+	 * @param snapshot the snapshot to show
+	 * @param i the index of the cell
+	 * @param color the color
+	 * @return the number of markers, 0 to 6
+	 */
+	private int markerCount(TurnSnapshot snapshot, int i, E_Color color) {
+		if (!snapshot.checkAnyMarker(i, color))
+			return 0;
+		int n = 0;
+		for (int m = 0; m < 6; m++) {
+			if (snapshot.checkMarker(i, color, m))
+				n++;
+		}
+		return n;
+	}
+	
+	/**
+	 * Mixes some of one color into another.
+	 * @param base the color to start with
+	 * @param tint the color to mix in
+	 * @param amount how much of the tint to mix in, out of whole
+	 * @param whole the amount for the tint alone
+	 * @return the mixed color
+	 */
+	private static int blend(int base, int tint, int amount, int whole) {
+		if (amount == 0)
+			return base;
+		int r = ((base >> 16 & 0xFF) * (whole - amount) + (tint >> 16 & 0xFF) * amount) / whole;
+		int g = ((base >> 8 & 0xFF) * (whole - amount) + (tint >> 8 & 0xFF) * amount) / whole;
+		int b = ((base & 0xFF) * (whole - amount) + (tint & 0xFF) * amount) / whole;
+		return r << 16 | g << 8 | b;
+	}
+}
@@ -0,0 +1,106 @@
+package ui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseEvent;
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.event.MouseInputAdapter;
+import world.World;
+
+/**
+ * A minimap of the whole world, shown beside the main map.
+ * Draws the map's MapRaster scaled to fit, with a box around the part of the map in view; 
+ * clicking or dragging on it moves the main map's view.
+ * @author JOH
+ * @version 1
+ */
+@SuppressWarnings("serial")
+public class MiniMapPanel extends JPanel {
+
+	private World world;
+	private MapPanel mapPanel;
+	private JViewport viewport;			//	The main map's view
+	private double scale;				//	Minimap pixels per cell
+	
+	private static final int SIZE = 200;	//	The most pixels the minimap takes up either way
+	
+	/**
+	 * Constructor.
+	 * @param world the world to show
+	 * @param mapPanel the main map
+	 * @param viewport the main map's view
+	 */
+	public MiniMapPanel(World world, MapPanel mapPanel, JViewport viewport) {
+		this.world = world;
+		this.mapPanel = mapPanel;
+		this.viewport = viewport;
+		scale = Math.min((double) SIZE / world.getWidth(), (double) SIZE / world.getHeight());
+		Dimension size = new Dimension((int) (world.getWidth() * scale), (int) (world.getHeight() * scale));
+		setPreferredSize(size);
+		setMaximumSize(size);
+		
+		MiniMapListener listener = new MiniMapListener();
+		addMouseListener(listener);
+		addMouseMotionListener(listener);
+	}
+	
+	/**
+	 * Draws the minimap.
+	 */
+	@Override
+	public void paintComponent(Graphics g) {
+		Graphics2D g2d = (Graphics2D) g;
+		g2d.setColor(Color.BLACK);
+		g2d.fillRect(0, 0, getWidth(), getHeight());
+		
+		MapRaster raster = mapPanel.getRaster();
+		raster.update(world.getSnapshot());
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		int w = (int) (world.getWidth() * scale), h = (int) (world.getHeight() * scale);
+		g2d.drawImage(raster.getImage(), 0, 0, w, h, null);
+		
+		//	Box the part of the map in view
+		Dimension mapSize = mapPanel.getMapSize();
+		Rectangle view = viewport.getViewRect();
+		g2d.setColor(Color.YELLOW);
+		g2d.drawRect(view.x * w / mapSize.width, view.y * h / mapSize.height, 
+				Math.max(1, view.width * w / mapSize.width - 1), Math.max(1, view.height * h / mapSize.height - 1));
+	}
+	
+	/**
+	 * Mouse Input Adaptor Inner Class.
+	 * Centres the main map's view on the point clicked or dragged to.
+	 */
+	class MiniMapListener extends MouseInputAdapter
+	{
+		public void mousePressed(MouseEvent e) {
+			centreOn(e.getX(), e.getY());
+		}
+		public void mouseDragged(MouseEvent e) {
+			centreOn(e.getX(), e.getY());
+		}
+		
+		/**
+		 * Centres the main map's view on a point of the minimap.
+		 * @param x the x coordinate on the minimap
+		 * @param y the y coordinate on the minimap
+		 */
+		private void centreOn(int x, int y) {
+			Dimension mapSize = mapPanel.getMapSize();
+			Rectangle view = viewport.getViewRect();
+			int w = (int) (world.getWidth() * scale), h = (int) (world.getHeight() * scale);
+			int newX = x * mapSize.width / w - view.width / 2;
+			int newY = y * mapSize.height / h - view.height / 2;
+			newX = Math.max(0, Math.min(newX, mapPanel.getWidth() - view.width));
+			newY = Math.max(0, Math.min(newY, mapPanel.getHeight() - view.height));
+			viewport.setViewPosition(new Point(newX, newY));
+			repaint();
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.awt.Graphics2D;
 
 import javax.swing.JPanel;
 
+import world.TurnSnapshot;
 import world.World;
 
 /**
@@ -41,11 +42,14 @@ public class ScoreRatioPanel extends JPanel {
 		g2d.fillRect(0, 0, this.getWidth(), this.getHeight());
 		
 		
-		//	Work out the ratio
-		int foodCollected = world.getBlackScore() + world.getRedScore();
+		//	Work out the ratio, from the turn on display
+		TurnSnapshot snapshot = world.getSnapshot();
+		if (snapshot == null)
+			return;
+		int foodCollected = snapshot.getBlackScore() + snapshot.getRedScore();
 		if (foodCollected == 0)
 			return;
-		float ratio = (float)world.getRedScore() / (float)foodCollected;
+		float ratio = (float)snapshot.getRedScore() / (float)foodCollected;
 		g2d.setColor(Color.RED);
 		g2d.fillRect(0, 0, (int)(ratio*this.getWidth()), this.getHeight());
 		g2d.setColor(Color.BLACK);
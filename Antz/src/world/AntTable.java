@@ -0,0 +1,431 @@
+package world;
+
+import java.util.BitSet;
+import program.Ant;
+import enums.E_Color;
+import enums.E_Direction;
+
+/**
+ * The ants of one game, held as one primitive column per concern and indexed by ant id.
+ * 
+ * Ids restart at 0 every game and are handed out in the order the ants are placed, 
+ * so iterating ids in ascending order gives the order ants take their turns in.
+ * Ant objects are only views onto these columns.
+ * 
+ * Resting ants are not visited at all. Each ant records the turn it next acts on; ants that are
+ * awake are kept in one set, and resting ants wait in a timing wheel keyed by that turn until it comes round.
+ * 
+ * The table keeps its part of the World's state hash (see StateHash) up to date as each ant changes. 
+ * As resting counts down every turn by itself, resting is kept as the sums of the keys and of the keys times 
+ * the wake turns of the ants in the wheel, from which the hash of every resting time follows for any turn.
+ * 
+ * A table can instead keep resting as a plain count of turns per ant, counted down by each ant in its turn
+ * as the spec has it, for a reference world to check the wheel against (see LockstepRunner).
+ * @author JOH
+ * @version 4
+ */
+public class AntTable {
+
+	private int size;					//	Number of ants placed this game; ids are 0 to size - 1
+	private int[] state;				//	Current state of each ant within its brain
+	private int[] wake;					//	The first turn each ant acts on again; it rests until then
+	private byte[] direction;			//	Direction each ant is facing, as an E_Direction ordinal
+	private boolean[] hasFood;			//	True if the ant is carrying food
+	private byte[] color;				//	Color of each ant, as an E_Color ordinal
+	private BitSet alive;				//	Set for every living ant
+	private int[] position;				//	Index of the cell each ant is in, -1 if not on the map
+	private BitSet awake;				//	Set for every living ant that is not resting
+	private BitSet[] wheel;				//	Resting ants, in the slot for the turn they wake on (modulo WHEEL_SIZE)
+	private int turn;					//	The current turn
+	private Ant[] views;				//	An Ant view of each id
+	private long hash;					//	Sum of the state hash keys of every ant, except for resting
+	private long restingKeys;			//	Sum of the resting keys of the ants in the wheel
+	private long restingWakes;			//	Sum of the resting keys times the wake turns of the ants in the wheel
+	private boolean countdown = false;	//	If true, resting is counted down per ant rather than kept in the wheel
+	private int[] resting;				//	With countdown, the turns each ant has yet to rest
+	private long restingSum;			//	With countdown, the sum of the resting keys times the resting of each living ant
+	private boolean statesKnown = true;	//	False while a replay recorded without states is between keyframes
+	
+	private static final int WHEEL_SIZE = 16;	//	Longer than the usual 14 turn rest, so each slot holds ants due on one turn
+
+	private static final E_Color[] COLORS = E_Color.values();
+	private static final E_Direction[] DIRECTIONS = E_Direction.values();
+	
+	/**
+	 * Constructor.
+	 * @param world the world the ants live in
+	 * @param capacity the most ants a game can have (one per anthill cell)
+	 */
+	AntTable(World world, int capacity) {
+		state = new int[capacity];
+		wake = new int[capacity];
+		resting = new int[capacity];
+		direction = new byte[capacity];
+		hasFood = new boolean[capacity];
+		color = new byte[capacity];
+		alive = new BitSet(capacity);
+		position = new int[capacity];
+		awake = new BitSet(capacity);
+		wheel = new BitSet[WHEEL_SIZE];
+		for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+			wheel[slot] = new BitSet(capacity);
+		}
+		views = new Ant[capacity];
+		for (int id = 0; id < capacity; id++) {
+			views[id] = new Ant(world, id);
+		}
+	}
+	
+	/**
+	 * Removes every ant, ready for a new game.
+	 */
+	void clear() {
+		size = 0;
+		turn = 0;
+		hash = restingKeys = restingWakes = restingSum = 0;
+		statesKnown = true;
+		alive.clear();
+		awake.clear();
+		for (BitSet slot : wheel) {
+			slot.clear();
+		}
+	}
+	
+	/**
+	 * Adds a new ant in its starting state: state 0, not resting, facing east, without food.
+	 * @param c the color of the ant
+	 * @param cell the index of the cell it starts in
+	 * @return the new ant's id
+	 */
+	int add(E_Color c, int cell) {
+		int id = size++;
+		state[id] = 0;
+		wake[id] = 0;
+		resting[id] = 0;
+		direction[id] = (byte) E_Direction.EAST.ordinal();
+		hasFood[id] = false;
+		color[id] = (byte) c.ordinal();
+		position[id] = cell;
+		alive.set(id);
+		awake.set(id);
+		hash += StateHash.key(StateHash.STATE, id, 0) + StateHash.key(StateHash.DIRECTION, id, direction[id])
+				+ StateHash.key(StateHash.CARRYING, id, 0) + StateHash.key(StateHash.COLOR, id, color[id])
+				+ StateHash.key(StateHash.POSITION, id, cell) + StateHash.key(StateHash.ALIVE, id, 1);
+		return id;
+	}
+	
+	/**
+	 * Starts a new turn, waking the ants whose rest ends on it.
+	 * @param t the turn
+	 */
+	void startTurn(int t) {
+		turn = t;
+		BitSet slot = wheel[t % WHEEL_SIZE];
+		for (int id = slot.nextSetBit(0); id >= 0; id = slot.nextSetBit(id + 1)) {
+			//	A rest longer than the wheel leaves the ant in its slot for another time round
+			if (wake[id] == t) {
+				slot.clear(id);
+				unrest(id);
+				awake.set(id);
+			}
+		}
+	}
+	
+	/**
+	 * Chooses how resting is kept: counted down by each ant in its turn, or in the timing wheel.
+	 * Only to be changed between games.
+	 * @param countdown true to count down, so that every living ant is to be visited each turn (see countDownRest)
+	 */
+	void setCountdown(boolean countdown) {
+		this.countdown = countdown;
+	}
+	
+	/**
+	 * Counts down an ant's rest at the start of its turn, as the spec has it, when resting is counted down.
+	 * @param id the ant's id
+	 * @return true if the ant was resting, and so sits out this turn; false if it takes a step
+	 */
+	boolean countDownRest(int id) {
+		if (resting[id] == 0)
+			return false;
+		resting[id]--;
+		restingSum -= StateHash.key(StateHash.RESTING, id, 0);
+		return true;
+	}
+	
+	/**
+	 * Returns the first awake (living, not resting) ant with an id of at least the given id.
+	 * Ants that fall asleep or die during the turn are no longer returned.
+	 * @param id the id to start from
+	 * @return the id of the ant, or -1 if there is none
+	 */
+	public int nextAwake(int id) {
+		return awake.nextSetBit(id);
+	}
+	
+	/**
+	 * Returns the number of ants placed this game, living or dead.
+	 * @return the number of ids in use
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the number of living ants.
+	 * @return the number of living ants
+	 */
+	public int living() {
+		return alive.cardinality();
+	}
+	
+	/**
+	 * Returns the first living ant with an id of at least the given id.
+	 * @param id the id to start from
+	 * @return the id of the ant, or -1 if there is none
+	 */
+	public int nextAlive(int id) {
+		return alive.nextSetBit(id);
+	}
+	
+	/**
+	 * Returns true if the given ant is alive.
+	 * @param id the ant's id
+	 * @return true if alive, false otherwise (including ids not in use)
+	 */
+	public boolean isAlive(int id) {
+		return id >= 0 && id < size && alive.get(id);
+	}
+	
+	/**
+	 * Sets an ant to dead or alive.
+	 * @param id the ant's id
+	 * @param isAlive true if the ant should live, false otherwise
+	 */
+	public void setAlive(int id, boolean isAlive) {
+		hash += StateHash.key(StateHash.ALIVE, id, isAlive ? 1 : 0) - StateHash.key(StateHash.ALIVE, id, alive.get(id) ? 1 : 0);
+		if (countdown && isAlive != alive.get(id))
+			restingSum += StateHash.key(StateHash.RESTING, id, 0) * (isAlive ? resting[id] : -resting[id]);
+		alive.set(id, isAlive);
+		unschedule(id);
+		if (isAlive)
+			schedule(id);
+	}
+	
+	/**
+	 * Gets the current state of an ant.
+	 * @param id the ant's id
+	 * @return the state, or -1 if it is not known, as in a replay recorded without states between keyframes
+	 */
+	public int getState(int id) {
+		return statesKnown ? state[id] : -1;
+	}
+	
+	/**
+	 * Says whether the ants' states are up to date. A replay recorded without states has them only at keyframes,
+	 * and clears this in between, so that they read as -1 rather than as stale values.
+	 * @param statesKnown true if they are up to date
+	 */
+	void setStatesKnown(boolean statesKnown) {
+		this.statesKnown = statesKnown;
+	}
+	
+	/**
+	 * Sets the current state of an ant.
+	 * @param id the ant's id
+	 * @param s the state to set
+	 */
+	public void setState(int id, int s) {
+		if (s != state[id]) {
+			hash += StateHash.key(StateHash.STATE, id, s) - StateHash.key(StateHash.STATE, id, state[id]);
+			state[id] = s;
+		}
+	}
+	
+	/**
+	 * Gets how long an ant is resting for, as at the end of the current turn.
+	 * @param id the ant's id
+	 * @return how many more turns the ant will rest
+	 */
+	public int getResting(int id) {
+		if (countdown)
+			return resting[id];
+		return Math.max(0, wake[id] - turn - 1);
+	}
+	
+	/**
+	 * Sets how long an ant will have to rest: it sits out this many turns after the current one.
+	 * @param id the ant's id
+	 * @param turns the number of turns
+	 */
+	public void setResting(int id, int turns) {
+		if (countdown) {
+			if (alive.get(id))
+				restingSum += StateHash.key(StateHash.RESTING, id, 0) * (Math.max(0, turns) - resting[id]);
+			resting[id] = Math.max(0, turns);
+			return;
+		}
+		unschedule(id);
+		wake[id] = turn + Math.max(0, turns) + 1;
+		if (alive.get(id))
+			schedule(id);
+	}
+	
+	/**
+	 * Puts a living ant in the awake set or, if it is resting, in the wheel slot for the turn it wakes on.
+	 * @param id the ant's id
+	 */
+	private void schedule(int id) {
+		if (wake[id] > turn + 1) {
+			wheel[wake[id] % WHEEL_SIZE].set(id);
+			long key = StateHash.key(StateHash.RESTING, id, 0);
+			restingKeys += key;
+			restingWakes += key * wake[id];
+		} else {
+			awake.set(id);
+		}
+	}
+	
+	/**
+	 * Takes an ant out of the awake set and the wheel.
+	 * @param id the ant's id
+	 */
+	private void unschedule(int id) {
+		awake.clear(id);
+		BitSet slot = wheel[wake[id] % WHEEL_SIZE];
+		if (wake[id] > turn && slot.get(id)) {
+			slot.clear(id);
+			unrest(id);
+		}
+	}
+	
+	/**
+	 * Takes an ant leaving the wheel out of the resting sums.
+	 * @param id the ant's id
+	 */
+	private void unrest(int id) {
+		long key = StateHash.key(StateHash.RESTING, id, 0);
+		restingKeys -= key;
+		restingWakes -= key * wake[id];
+	}
+	
+	/**
+	 * Returns the ants' part of the World's state hash, as at the end of the current turn.
+	 * @return the sum of the keys of every ant
+	 */
+	long getHash() {
+		if (countdown)
+			return hash + restingSum;
+		return hash + restingWakes - (turn + 1) * restingKeys;
+	}
+	
+	/**
+	 * Works out the ants' part of the World's state hash afresh, from every ant.
+	 * @return the sum of the keys of every ant
+	 */
+	long computeHash() {
+		long sum = 0;
+		for (int id = 0; id < size; id++) {
+			sum += StateHash.key(StateHash.STATE, id, state[id]) + StateHash.key(StateHash.DIRECTION, id, direction[id])
+					+ StateHash.key(StateHash.CARRYING, id, hasFood[id] ? 1 : 0) + StateHash.key(StateHash.COLOR, id, color[id])
+					+ StateHash.key(StateHash.POSITION, id, position[id]) + StateHash.key(StateHash.ALIVE, id, alive.get(id) ? 1 : 0);
+			if (alive.get(id))
+				sum += StateHash.key(StateHash.RESTING, id, 0) * getResting(id);
+		}
+		return sum;
+	}
+	
+	/**
+	 * Gets the direction an ant is facing.
+	 * @param id the ant's id
+	 * @return the direction as an E_Direction ordinal
+	 */
+	public int getDirection(int id) {
+		return direction[id];
+	}
+	
+	/**
+	 * Gets the direction an ant is facing.
+	 * @param id the ant's id
+	 * @return the direction
+	 */
+	public E_Direction getDirectionEnum(int id) {
+		return DIRECTIONS[direction[id]];
+	}
+	
+	/**
+	 * Sets the direction an ant is facing. Only the World keeps this in step with the display.
+	 * @param id the ant's id
+	 * @param d the direction as an E_Direction ordinal
+	 */
+	void setDirection(int id, int d) {
+		hash += StateHash.key(StateHash.DIRECTION, id, d) - StateHash.key(StateHash.DIRECTION, id, direction[id]);
+		direction[id] = (byte) d;
+	}
+	
+	/**
+	 * Gets if an ant is carrying food.
+	 * @param id the ant's id
+	 * @return true if carrying food, false otherwise
+	 */
+	public boolean hasFood(int id) {
+		return hasFood[id];
+	}
+	
+	/**
+	 * Gives/takes a food particle from an ant. Only the World keeps this in step with its sense bits.
+	 * @param id the ant's id
+	 * @param food true to give food, false to take food
+	 */
+	void setHasFood(int id, boolean food) {
+		hash += StateHash.key(StateHash.CARRYING, id, food ? 1 : 0) - StateHash.key(StateHash.CARRYING, id, hasFood[id] ? 1 : 0);
+		hasFood[id] = food;
+	}
+	
+	/**
+	 * Gets the color of an ant.
+	 * @param id the ant's id
+	 * @return the color
+	 */
+	public E_Color getColor(int id) {
+		return COLORS[color[id]];
+	}
+	
+	/**
+	 * Sets the color of an ant. Only the World keeps this in step with its grid.
+	 * @param id the ant's id
+	 * @param c the color
+	 */
+	void setColor(int id, E_Color c) {
+		hash += StateHash.key(StateHash.COLOR, id, c.ordinal()) - StateHash.key(StateHash.COLOR, id, color[id]);
+		color[id] = (byte) c.ordinal();
+	}
+	
+	/**
+	 * Gets the cell an ant is in.
+	 * @param id the ant's id
+	 * @return the index of the cell, or -1 if the ant is not on the map
+	 */
+	public int getPosition(int id) {
+		return position[id];
+	}
+	
+	/**
+	 * Sets the cell an ant is in. Only the World keeps this in step with its grid.
+	 * @param id the ant's id
+	 * @param cell the index of the cell, or -1 if the ant is not on the map
+	 */
+	void setPosition(int id, int cell) {
+		hash += StateHash.key(StateHash.POSITION, id, cell) - StateHash.key(StateHash.POSITION, id, position[id]);
+		position[id] = cell;
+	}
+	
+	/**
+	 * Returns an Ant view of the given ant.
+	 * @param id the ant's id
+	 * @return the view
+	 */
+	public Ant view(int id) {
+		return views[id];
+	}
+}
@@ -7,42 +7,28 @@ import enums.E_Terrain;
 
 /**
  * Represents an individual map cell in an Ant world.
+ * 
+ * A Cell holds no state of its own; it is a view onto one cell of its World's map arrays.
+ * Views are made as they are first asked for, on whatever thread asks; their fields are final, so they can be shared.
  * @author JOH
- * @version 1
+ * @version 3
  */
 public class Cell {
 	
-	private E_Terrain terrain;			//	The terrain at this location
-	private Ant ant;					//	The ant (if any) at this location
-	private int foodAmount;				//	The amount of food (if any) at this location
-	private boolean[] redMarkers;		//	Red markers at this cell
-	private boolean[] blackMarkers;		//	Black markers at this cell
-	private Position position;			//	The x/y coordinates of this cell
-	private World world;				//	The map this cell is within
+	private final World world;		//	The map this cell is within
+	private final int index;			//	The index of this cell within the map arrays
+	private final Position position;	//	The x/y coordinates of this cell
 	
 	/**
 	 * Constructor.
-	 * @param terrain the terrain at this location
-	 * @param foodAmount the amount of food at this location
+	 * @param world the map this cell is within
+	 * @param index the index of this cell within the map arrays
+	 * @param position the x/y coordinates of this cell
 	 */
-	public Cell(E_Terrain terrain, int foodAmount, Position position) {
-		this.terrain = terrain;
-		this.foodAmount = foodAmount;
-		setPosition(position);
-		redMarkers = new boolean[6];
-		blackMarkers = new boolean[6];
-	}
-	
-	/**
-	 * overloaded constructor; allows to set world
-	 * @param terrain the terrain at this location
-	 * @param foodAmount the amount of food at this location
-	 * @param position
-	 * @param world
-	 */
-	public Cell(E_Terrain terrain, int foodAmount, Position position, World world) {
-		this(terrain, foodAmount, position);
+	Cell(World world, int index, Position position) {
 		this.world = world;
+		this.index = index;
+		this.position = position;
 	}
 	
 	/**
@@ -51,12 +37,7 @@ public class Cell {
 	 */
 	public boolean checkAnyMarker(E_Color color)
 	{
-		for (int i = 0; i < 6; i++)
-			if (color == E_Color.RED && redMarkers[i] == true)
-				return true;
-			else if (color == E_Color.BLACK && blackMarkers[i] == true)
-				return true;
-		return false;
+		return world.checkAnyMarker(index, color);
 	}
 	
 	/**
@@ -67,13 +48,7 @@ public class Cell {
 	 */
 	public boolean checkMarker(E_Color color, int marker)
 	{
-		if (marker < 0 || marker > 5)
-			return false;
-		if (color == E_Color.BLACK)
-			return blackMarkers[marker];
-		if (color == E_Color.RED)
-			return redMarkers[marker];
-		return false;
+		return world.checkMarker(index, color, marker);
 	}
 	
 	/**
@@ -84,15 +59,7 @@ public class Cell {
 	 */
 	public boolean setMarker(E_Color color, int marker) 
 	{
-		if (marker < 0 || marker > 5)
-			return false;
-		if (color == E_Color.BLACK)
-			blackMarkers[marker] = true;
-		else if (color == E_Color.RED)
-			redMarkers[marker] = true;
-		else
-			return false;
-		return true;
+		return world.setMarker(index, color, marker);
 	}
 
 	/**
@@ -103,15 +70,7 @@ public class Cell {
 	 */
 	public boolean clearMarker(E_Color color, int marker) 
 	{
-		if (marker < 0 || marker > 5)
-			return false;
-		if (color == E_Color.BLACK)
-			blackMarkers[marker] = false;
-		else if (color == E_Color.RED)
-			redMarkers[marker] = false;
-		else
-			return false;
-		return true;
+		return world.clearMarker(index, color, marker);
 	}
 	
 	
@@ -119,8 +78,7 @@ public class Cell {
 	 * Resets all markers present in this cell
 	 */
 	public void resetAllMarkers(){
-		redMarkers = new boolean[6];
-		blackMarkers = new boolean[6];	
+		world.clearAllMarkers(index);
 	}
 	
 	/**
@@ -128,7 +86,7 @@ public class Cell {
 	 * @return the terrain
 	 */
 	public E_Terrain getTerrain() {
-		return terrain;
+		return world.terrainAt(index);
 	}
 	
 	/**
@@ -136,7 +94,7 @@ public class Cell {
 	 * @return true if an ant is here, false otherwise
 	 */
 	public boolean isAnt() {
-		return ant != null;
+		return world.antAt(index) != null;
 	}
 
 	/**
@@ -144,7 +102,7 @@ public class Cell {
 	 * @return the ant, or null if none here
 	 */
 	public Ant getAnt() {
-		return ant;
+		return world.antAt(index);
 	}
 	
 	/**
@@ -152,16 +110,17 @@ public class Cell {
 	 * @param ant the ant to place
 	 */
 	public void setAnt(Ant ant) {
-		this.ant = ant;
+		if (ant == null)
+			world.clearAntAt(index);
+		else
+			world.setAntAt(index, ant);
 	}
 	
 	/**
 	 * Kills the ant at this location, removing it and adding 3 food particles.
 	 */
 	public void killAnt() {
-		this.ant.setAlive(false);
-		this.ant = null;
-		this.foodAmount += 3;
+		world.killAntAt(index);
 	}
 	
 	/**
@@ -169,7 +128,7 @@ public class Cell {
 	 * @return the amount
 	 */
 	public int getFoodAmount() {
-		return foodAmount;
+		return world.foodAt(index);
 	}
 	
 	/**
@@ -177,7 +136,7 @@ public class Cell {
 	 * @param the amount
 	 */
 	public void setFoodAmount(int foodAmount) {
-		this.foodAmount = foodAmount;
+		world.setFoodAt(index, foodAmount);
 	}
 
 	/**
@@ -189,11 +148,11 @@ public class Cell {
 	}
 
 	/**
-	 * Sets the x/y coordinates of this cell.
-	 * @param position
+	 * Gets the index of this cell within its world's map arrays.
+	 * @return the index
 	 */
-	public void setPosition(Position position) {
-		this.position = position;
+	public int getIndex() {
+		return index;
 	}
 
 	/**
@@ -203,22 +162,5 @@ public class Cell {
 	public World getWorld() {
 		return world;
 	}
-
-	/**
-	 * Sets the world this cell is within.
-	 * @param world
-	 */
-	public void setWorld(World world) {
-		this.world = world;
-	}
-
-	/**
-	 * Returns a new cell that is the same as given cell
-	 * @param cell cell to copy
-	 * @return new cell with the same parameters
-	 */
-	public static Cell copy(Cell cell) {
-		return new Cell(cell.getTerrain(), cell.getFoodAmount(), cell.getPosition(), cell.getWorld());
-	}
 	
 }
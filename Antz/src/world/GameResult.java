@@ -0,0 +1,86 @@
+package world;
+
+/**
+ * Holds the outcome of a single game.
+ * @author JOH
+ * @version 1
+ */
+public class GameResult {
+
+	private String redName, blackName;		//	Team names
+	private int redScore, blackScore;		//	Final scores
+	private int turns;						//	The number of turns played
+	private long elapsedMillis;				//	Wall-clock time taken to play the game
+	
+	/**
+	 * Constructor.
+	 * @param redName name of the red team
+	 * @param blackName name of the black team
+	 * @param redScore the red team's final score
+	 * @param blackScore the black team's final score
+	 * @param turns the number of turns played
+	 * @param elapsedMillis wall-clock time taken, in milliseconds
+	 */
+	public GameResult(String redName, String blackName, int redScore, int blackScore, int turns, long elapsedMillis) {
+		this.redName = redName;
+		this.blackName = blackName;
+		this.redScore = redScore;
+		this.blackScore = blackScore;
+		this.turns = turns;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * Returns red team's name.
+	 * @return redName
+	 */
+	public String getRedName() {
+		return redName;
+	}
+
+	/**
+	 * Returns black team's name.
+	 * @return blackName
+	 */
+	public String getBlackName() {
+		return blackName;
+	}
+
+	/**
+	 * Returns the red score.
+	 * @return the score
+	 */
+	public int getRedScore() {
+		return redScore;
+	}
+
+	/**
+	 * Returns the black score.
+	 * @return the score
+	 */
+	public int getBlackScore() {
+		return blackScore;
+	}
+
+	/**
+	 * Returns the number of turns played.
+	 * @return the turns
+	 */
+	public int getTurns() {
+		return turns;
+	}
+
+	/**
+	 * Returns the wall-clock time taken to play the game.
+	 * @return the time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+	
+	@Override
+	public String toString() {
+		return redName + " (red) " + redScore + " - " + blackScore + " " + blackName + " (black), " 
+				+ turns + " turns in " + elapsedMillis + "ms";
+	}
+}
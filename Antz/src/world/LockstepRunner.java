@@ -0,0 +1,211 @@
+package world;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import enums.E_Color;
+import enums.E_Direction;
+
+/**
+ * Plays the same game on two worlds side by side, a turn at a time, and stops at the first turn after which
+ * they differ: a reference world, stepping its ants through the State_* objects as the spec is written,
+ * and a world under test, stepping them however it is set to.
+ *
+ * The reference shares none of the fast path's shortcuts (see World.setStepByStates), and its state hash is
+ * worked out afresh from a full scan every turn, so it is a check on the running hash too. After every turn 
+ * the hashes and scores of the two worlds are compared, and the world under test is checked for sense bits, 
+ * ant positions or counts of neighbours out of step with its grid. When anything differs, or at the end of 
+ * the game, the worlds are compared in full, cell by cell and ant by ant, and every difference is listed.
+ * @author JOH
+ * @version 2
+ */
+public class LockstepRunner {
+
+	private World reference;					//	Steps the ants through the State_* objects, the slow way
+	private World candidate;					//	Steps the ants however it is set to
+	private int turn;							//	The last turn played on both
+	private List<String> differences;			//	What differed at the last full comparison
+
+	private static final int MAX_DIFFERENCES = 20;	//	Of each kind, listed in full
+	private static final E_Direction[] DIRECTIONS = E_Direction.values();
+
+	/**
+	 * Constructor. Both worlds must be on the same map, with the same brains and seed.
+	 * @param reference the world to check against; it is set to step through the State_* objects
+	 * @param candidate the world to check
+	 */
+	public LockstepRunner(World reference, World candidate) {
+		if (reference.getWidth() != candidate.getWidth() || reference.getHeight() != candidate.getHeight())
+			throw new IllegalArgumentException("The worlds are not on the same map");
+		this.reference = reference;
+		this.candidate = candidate;
+		reference.setStepByStates(true);
+		this.differences = new ArrayList<>();
+	}
+
+	/**
+	 * Plays a whole game on both worlds, or as much of it as they agree on.
+	 * @return true if the worlds were the same after every turn, false if they differ after getTurn()
+	 */
+	public boolean run() {
+		return run(World.MAXTURNS);
+	}
+
+	/**
+	 * Plays the game on both worlds until they differ or the given number of turns has been played.
+	 * @param turns the number of turns to play
+	 * @return true if the worlds were the same after every turn, false if they differ after getTurn()
+	 */
+	public boolean run(int turns) {
+		reference.beginStepping();
+		candidate.beginStepping();
+		turn = 0;
+		while (agree() && turn < turns) {
+			reference.playNextTurn();
+			candidate.playNextTurn();
+			turn++;
+		}
+		return compare();
+	}
+
+	/**
+	 * Returns the last turn played on both worlds.
+	 * @return the turn
+	 */
+	public int getTurn() {
+		return turn;
+	}
+
+	/**
+	 * Returns what differed between the worlds after the last turn played, as one line per cell, ant or RNG.
+	 * @return the differences, reference first; empty if there were none
+	 */
+	public List<String> getDifferences() {
+		return differences;
+	}
+
+	/**
+	 * Compares the two worlds quickly, by their hashes and scores, and checks the world under test against its grid.
+	 * @return true if nothing was found to differ
+	 */
+	private boolean agree() {
+		return reference.computeStateHash() == candidate.getStateHash()
+				&& reference.getRedScore() == candidate.getRedScore() && reference.getBlackScore() == candidate.getBlackScore()
+				&& candidate.sensesAreConsistent() && candidate.antIndexIsConsistent();
+	}
+	
+	/**
+	 * Compares the two worlds in full, listing every difference.
+	 * @return true if there are none
+	 */
+	private boolean compare() {
+		differences.clear();
+		int cellDifferences = 0;
+		int width = reference.getWidth();
+		for (int i = 0; i < width * reference.getHeight(); i++) {
+			StringBuilder line = new StringBuilder();
+			compare(line, "food", reference.foodAt(i), candidate.foodAt(i));
+			for (E_Color c : E_Color.values()) {
+				compare(line, c.name().toLowerCase() + " marks", marks(reference, i, c), marks(candidate, i, c));
+			}
+			compare(line, "ant", antAt(reference, i), antAt(candidate, i));
+			if (line.length() > 0 && cellDifferences++ < MAX_DIFFERENCES)
+				differences.add("cell (" + i % width + ", " + i / width + "):" + line);
+		}
+		if (cellDifferences > MAX_DIFFERENCES)
+			differences.add("... and " + (cellDifferences - MAX_DIFFERENCES) + " more cells");
+
+		AntTable ra = reference.getAnts(), ca = candidate.getAnts();
+		int antDifferences = 0;
+		for (int id = 0; id < Math.max(ra.size(), ca.size()); id++) {
+			StringBuilder line = new StringBuilder();
+			compare(line, "", describe(reference, id), describe(candidate, id));
+			if (line.length() > 0 && antDifferences++ < MAX_DIFFERENCES)
+				differences.add("ant " + id + ":" + line);
+		}
+		if (antDifferences > MAX_DIFFERENCES)
+			differences.add("... and " + (antDifferences - MAX_DIFFERENCES) + " more ants");
+
+		StringBuilder scores = new StringBuilder();
+		compare(scores, "red", reference.getRedScore(), candidate.getRedScore());
+		compare(scores, "black", reference.getBlackScore(), candidate.getBlackScore());
+		if (scores.length() > 0)
+			differences.add("scores:" + scores);
+
+		StringBuilder rng = new StringBuilder();
+		compare(rng, "seed", reference.getRandGenerator().getSeed(), candidate.getRandGenerator().getSeed());
+		if (rng.length() > 0)
+			differences.add("rng:" + rng);
+
+		//	The hash does not cover the sense bits or the counts of neighbours, which only the fast path relies on
+		if (!candidate.sensesAreConsistent() || !candidate.antIndexIsConsistent())
+			differences.add("candidate: sense bits, ant positions or counts of neighbours out of step with the grid");
+		if (!reference.antIndexIsConsistent())
+			differences.add("reference: ant positions out of step with the grid");
+
+		//	The reference's hash is from a full scan, so a difference here is a fault in keeping the running hash
+		if (candidate.getStateHash() != candidate.computeStateHash())
+			differences.add("candidate: running state hash " + Long.toHexString(candidate.getStateHash())
+					+ " out of step with the game's " + Long.toHexString(candidate.computeStateHash()));
+		if (differences.isEmpty() && reference.computeStateHash() != candidate.getStateHash())
+			differences.add("state hash: " + Long.toHexString(reference.computeStateHash()) + " / "
+					+ Long.toHexString(candidate.getStateHash()) + ", but nothing else differs");
+		return differences.isEmpty();
+	}
+
+	/**
+	 * Adds one value to a line of differences if it is not the same in both worlds.
+	 * @param line the line
+	 * @param what what the value is
+	 * @param ours the value in the reference
+	 * @param theirs the value in the world under test
+	 */
+	private static void compare(StringBuilder line, String what, Object ours, Object theirs) {
+		if (!ours.equals(theirs))
+			line.append(' ').append(what).append(what.isEmpty() ? "" : " ").append(ours).append(" / ").append(theirs).append(';');
+	}
+
+	/**
+	 * Describes the markers of one color in a cell.
+	 * @param world the world
+	 * @param i the index of the cell
+	 * @param c the color
+	 * @return the marker numbers, or "none"
+	 */
+	private static String marks(World world, int i, E_Color c) {
+		StringBuilder marks = new StringBuilder();
+		for (int m = 0; m < 6; m++) {
+			if (world.checkMarker(i, c, m))
+				marks.append(m);
+		}
+		return marks.length() == 0 ? "none" : marks.toString();
+	}
+
+	/**
+	 * Describes the ant in a cell.
+	 * @param world the world
+	 * @param i the index of the cell
+	 * @return the ant's id, or "none"
+	 */
+	private static String antAt(World world, int i) {
+		int id = world.antIdAt(i);
+		return id == -1 ? "none" : Integer.toString(id);
+	}
+
+	/**
+	 * Describes everything about an ant. A dead ant's resting is left out, as the spec never counts it down.
+	 * @param world the world
+	 * @param id the ant's id
+	 * @return the description, or "none" if there is no such ant
+	 */
+	private static String describe(World world, int id) {
+		AntTable ants = world.getAnts();
+		if (id >= ants.size())
+			return "none";
+		int cell = ants.getPosition(id);
+		return ants.getColor(id).name().toLowerCase() + (ants.isAlive(id) ? "" : " dead")
+				+ (cell == -1 ? " off the map" : " at (" + cell % world.getWidth() + ", " + cell / world.getWidth() + ")")
+				+ " " + DIRECTIONS[ants.getDirection(id)] + ", food " + (ants.hasFood(id) ? 1 : 0)
+				+ ", state " + ants.getState(id) + (ants.isAlive(id) ? ", resting " + ants.getResting(id) : "");
+	}
+}
@@ -0,0 +1,518 @@
+package world;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import enums.E_Color;
+
+/**
+ * Reads back a replay recorded by ReplayWriter, applying it turn by turn to a World built from its header.
+ * The format is described in ReplayWriter.
+ *
+ * Keyframes restore every ant, every cell and the RNG exactly. The turns between them replay each ant's moves,
+ * turns, food and markers and each death, in order, through the World's own mutators, so the food, scores, 
+ * sense bits and display stamps change just as they did in the game; then the ants' new states, and the RNG
+ * drawn as often as it was. So after every turn the replayed world is in the state the game was in, down to
+ * its state hash, and a replay can be checked against the game that made it. A replay recorded without states
+ * has them only at keyframes: in between, the world's AntTable reports them as -1, and its state hash is not the game's.
+ *
+ * Any turn can be reached by seeking: from the keyframe at or before it, found in the index, only the turns
+ * up to it are applied, so a seek costs at most one block whatever the length of the game. If the index at
+ * the end of the file is missing or damaged, as when a game was cut off, it is rebuilt by walking the blocks.
+ * @author JOH
+ * @version 3
+ */
+public class ReplayReader implements Closeable {
+
+	private FileChannel in;					//	The replay file
+	private int width, height;				//	Dimensions of the map
+	private byte[] terrain;					//	Terrain of each cell as an E_Terrain ordinal
+	private int[] food;						//	Food in each cell at the start of the game
+	private String redName, blackName;		//	Team names
+	private long seed;						//	The seed the game was played with
+	private boolean hasStates;				//	True if every change of state was recorded, not only keyframes
+	private int lastTurn;					//	The last turn recorded
+	private int[] blockTurns;				//	First turn of each turn block
+	private long[] blockOffsets;			//	File offset of each turn block
+	private int nextBlock;					//	The next turn block to read
+	private int nextTurn;					//	The next turn to apply
+	private int blockTurn;					//	First turn of the block being read
+	private byte[] raw = new byte[0];		//	The block being read, uncompressed
+	private int length, pos;				//	Bytes in raw, and how far they have been read
+	private byte[] compressed = new byte[0];
+	private Inflater inflater = new Inflater();
+
+	private static final E_Color[] COLORS = E_Color.values();
+
+	/**
+	 * Private constructor.
+	 * @param in the replay file
+	 */
+	private ReplayReader(FileChannel in) {
+		this.in = in;
+	}
+
+	/**
+	 * Factory method. Opens a replay and reads its header and index.
+	 * @param file the replay file
+	 * @return the reader, ready to apply turn 0
+	 * @throws IOException if the file cannot be read or is not a replay
+	 */
+	public static ReplayReader open(Path file) throws IOException {
+		ReplayReader reader = new ReplayReader(FileChannel.open(file, StandardOpenOption.READ));
+		try {
+			reader.readHeader();
+			reader.readIndex();
+		} catch (IOException | RuntimeException e) {
+			reader.close();
+			throw e;
+		}
+		return reader;
+	}
+
+	/**
+	 * Builds a World on the recorded map, with the recorded team names and seed but no brains.
+	 * @return the world
+	 */
+	public World createWorld() {
+		World world = new World(width, height, terrain, food);
+		world.setSeed(seed);
+		world.setRedBrain(redName, null);
+		world.setBlackBrain(blackName, null);
+		return world;
+	}
+
+	/**
+	 * Says whether every change of state was recorded, so that the replayed world matches the game after every turn.
+	 * @return true if it was, false if states are only recorded at keyframes
+	 */
+	public boolean hasStates() {
+		return hasStates;
+	}
+
+	/**
+	 * Returns the last turn recorded.
+	 * @return the turn
+	 */
+	public int getLastTurn() {
+		return lastTurn;
+	}
+
+	/**
+	 * Applies the next turn of the recording to a world, moving the world on to that turn.
+	 * The first call applies turn 0, the starting position.
+	 * @param world a world from createWorld()
+	 */
+	public void readTurn(World world) {
+		if (nextTurn > lastTurn)
+			throw new IllegalStateException("Replay has no turn " + nextTurn);
+		if (pos == length) {
+			readBlock(nextBlock++);
+			if (blockTurn != nextTurn)
+				throw new UncheckedIOException(new IOException("Replay block for turn " + blockTurn + " found at turn " + nextTurn));
+		}
+		if (nextTurn == blockTurn)
+			applyKeyframe(world, nextTurn);
+		else
+			applyChanges(world, nextTurn);
+		nextTurn++;
+	}
+
+	/**
+	 * Moves a world to any turn of the recording, from the nearest keyframe at or before it.
+	 * Reading on from a later turn in the same block does not go back to its keyframe.
+	 * @param world a world from createWorld()
+	 * @param turn the turn to show; turns past the last recorded are taken as the last
+	 */
+	public void seek(World world, int turn) {
+		turn = Math.max(0, Math.min(turn, lastTurn));
+		int b = Arrays.binarySearch(blockTurns, turn);
+		if (b < 0)
+			b = -b - 2;
+		if (b != nextBlock - 1 || turn < nextTurn - 1) {
+			readBlock(b);
+			nextBlock = b + 1;
+			nextTurn = blockTurns[b];
+		}
+		while (nextTurn <= turn) {
+			readTurn(world);
+		}
+	}
+
+	/**
+	 * Closes the replay file.
+	 */
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		in.close();
+	}
+
+	/**
+	 * Reads the index from the end of the file, or rebuilds it if it is not there.
+	 * @throws IOException if the file cannot be read or holds no turns
+	 */
+	private void readIndex() throws IOException {
+		long size = in.size();
+		if (size >= 8 + 16 + 8) {
+			long indexOffset = readAt(size - 8, 8).getLong();
+			if (indexOffset >= 8 && indexOffset <= size - 16) {
+				ByteBuffer index = readAt(indexOffset, 8);
+				int blocks = index.getInt();
+				lastTurn = index.getInt();
+				if (blocks > 0 && indexOffset + 8 + blocks * 12L + 8 == size) {
+					index = readAt(indexOffset + 8, blocks * 12);
+					blockTurns = new int[blocks];
+					blockOffsets = new long[blocks];
+					for (int b = 0; b < blocks; b++) {
+						blockTurns[b] = index.getInt();
+						blockOffsets[b] = index.getLong();
+					}
+					return;
+				}
+			}
+		}
+		buildIndex(size);
+	}
+
+	/**
+	 * Rebuilds the index by walking the block framing from the header on, up to the end of the file or the
+	 * first block cut short, then counts the turns in the last whole block to find the last turn.
+	 * @param size the size of the file
+	 * @throws IOException if the file cannot be read or holds no whole turn block
+	 */
+	private void buildIndex(long size) throws IOException {
+		blockTurns = new int[16];
+		blockOffsets = new long[16];
+		int blocks = 0;
+		long offset = 8;
+		while (offset + ReplayWriter.FRAME_SIZE <= size) {
+			ByteBuffer frame = readAt(offset, ReplayWriter.FRAME_SIZE);
+			byte kind = frame.get();
+			int firstTurn = frame.getInt();
+			frame.getInt();
+			long end = offset + ReplayWriter.FRAME_SIZE + frame.getInt();
+			if (end > size || (kind != ReplayWriter.HEADER_BLOCK && kind != ReplayWriter.TURN_BLOCK))
+				break;
+			if (kind == ReplayWriter.TURN_BLOCK) {
+				if (blocks == blockTurns.length) {
+					blockTurns = Arrays.copyOf(blockTurns, blocks * 2);
+					blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+				}
+				blockTurns[blocks] = firstTurn;
+				blockOffsets[blocks] = offset;
+				blocks++;
+			}
+			offset = end;
+		}
+		//	A block that does not inflate whole was cut short after its framing was written
+		while (blocks > 0) {
+			try {
+				readBlockAt(blockOffsets[blocks - 1]);
+				break;
+			} catch (IOException e) {
+				blocks--;
+			}
+		}
+		if (blocks == 0)
+			throw new IOException("Replay holds no turns");
+		blockTurns = Arrays.copyOf(blockTurns, blocks);
+		blockOffsets = Arrays.copyOf(blockOffsets, blocks);
+		lastTurn = blockTurn + countTurns() - 1;
+		pos = length = 0;
+	}
+
+	/**
+	 * Counts the turns in the block just read, keyframe included, skipping over their contents.
+	 * @return the number of turns
+	 */
+	private int countTurns() {
+		int count = getVarint();
+		for (int k = 0; k < count; k++) {
+			pos += 3;
+			getVarint();
+			getVarint();
+			getVarint();
+		}
+		for (int i = 0; i < 2 * width * height; i++) {
+			getVarint();
+		}
+		pos += 8;
+		int turns = 1;
+		while (pos < length) {
+			int events = getVarint();
+			for (int k = 0; k < events; k++) {
+				int code = getVarint() & 7;
+				if (code == ReplayWriter.MARK || code == ReplayWriter.UNMARK)
+					getVarint();
+			}
+			getVarint();
+			int changed = hasStates ? getVarint() : 0;
+			for (int k = 0; k < 2 * changed; k++) {
+				getVarint();
+			}
+			turns++;
+		}
+		return turns;
+	}
+
+	/**
+	 * Reads the header block, which follows the magic number and version.
+	 * @throws IOException if the file cannot be read, is not a replay or the header is damaged
+	 */
+	private void readHeader() throws IOException {
+		ByteBuffer start = readAt(0, 8);
+		if (start.getInt() != ReplayWriter.MAGIC)
+			throw new IOException("Not an Antz replay");
+		if (start.getInt() != ReplayWriter.VERSION)
+			throw new IOException("Unsupported replay version");
+		if (readBlockAt(8) != ReplayWriter.HEADER_BLOCK)
+			throw new IOException("Replay header missing");
+		width = getVarint();
+		height = getVarint();
+		getVarint();	//	Keyframe interval; the index gives each block's turn
+		hasStates = getVarint() != 0;
+		terrain = new byte[width * height];
+		for (int i = 0; i < terrain.length; i++) {
+			terrain[i] = raw[pos++];
+		}
+		food = new int[width * height];
+		for (int i = 0; i < food.length; i++) {
+			food[i] = getVarint();
+		}
+		redName = getString();
+		blackName = getString();
+		seed = getLong();
+		pos = length = 0;
+	}
+
+	/**
+	 * Reads and uncompresses one turn block.
+	 * @param b the block number
+	 */
+	private void readBlock(int b) {
+		try {
+			readBlockAt(blockOffsets[b]);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads and uncompresses the block at a file offset, ready to be read from the start.
+	 * @param offset the offset of the block's framing
+	 * @return the kind of block
+	 * @throws IOException if the file cannot be read or the block is damaged
+	 */
+	private byte readBlockAt(long offset) throws IOException {
+		ByteBuffer frame = readAt(offset, ReplayWriter.FRAME_SIZE);
+		byte kind = frame.get();
+		blockTurn = frame.getInt();
+		length = frame.getInt();
+		int size = frame.getInt();
+		if (length < 0 || size < 0)
+			throw new IOException("Replay block damaged");
+		if (compressed.length < size)
+			compressed = new byte[size];
+		ByteBuffer data = ByteBuffer.wrap(compressed, 0, size);
+		readFully(data, offset + ReplayWriter.FRAME_SIZE);
+		if (raw.length < length)
+			raw = new byte[length];
+		inflater.reset();
+		inflater.setInput(compressed, 0, size);
+		try {
+			int got = 0;
+			while (got < length && !inflater.finished()) {
+				int n = inflater.inflate(raw, got, length - got);
+				if (n == 0 && inflater.needsInput())
+					break;
+				got += n;
+			}
+			if (got != length)
+				throw new IOException("Replay block truncated");
+		} catch (DataFormatException e) {
+			throw new IOException("Replay block damaged", e);
+		}
+		pos = 0;
+		return kind;
+	}
+
+	/**
+	 * Restores every ant and cell from a keyframe.
+	 * @param world the world to restore
+	 * @param turn the turn of the keyframe
+	 */
+	private void applyKeyframe(World world, int turn) {
+		AntTable ants = world.getAnts();
+		for (int id = 0; id < ants.size(); id++) {
+			if (ants.getPosition(id) != -1)
+				world.clearAntAt(ants.getPosition(id));
+		}
+		ants.clear();
+		ants.setStatesKnown(true);
+		world.setTurn(turn);
+		int count = getVarint();
+		for (int k = 0; k < count; k++) {
+			int flags = raw[pos++];
+			int id = ants.add(COLORS[raw[pos++]], -1);
+			ants.setDirection(id, raw[pos++]);
+			ants.setHasFood(id, (flags & 2) != 0);
+			int cell = getVarint() - 1;
+			ants.setState(id, getVarint());
+			int resting = getVarint();
+			if ((flags & 1) != 0) {
+				world.setAntIdAt(cell, id);
+				ants.setResting(id, resting);
+			} else {
+				ants.setAlive(id, false);
+			}
+		}
+		for (int i = 0; i < width * height; i++) {
+			int f = getVarint();
+			if (world.foodAt(i) != f)
+				world.setFoodAt(i, f);
+			int m = getVarint();
+			if (world.markersAt(i) != m)
+				world.setMarkers(i, m);
+		}
+		world.getRandGenerator().restoreSeed(getLong());
+	}
+
+	/**
+	 * Applies one turn's events.
+	 * @param world the world to change
+	 * @param turn the turn
+	 */
+	private void applyChanges(World world, int turn) {
+		world.setTurn(turn);
+		AntTable ants = world.getAnts();
+		int count = getVarint();
+		int id = 0;
+		for (int k = 0; k < count; k++) {
+			int event = getVarint();
+			int delta = event >>> 3;
+			id += (delta >>> 1) ^ -(delta & 1);
+			int cell = ants.getPosition(id);
+			switch (event & 7) {
+				case ReplayWriter.MOVE:
+					int forward = world.adjacentIndex(cell, ants.getDirection(id));
+					world.clearAntAt(cell);
+					world.setAntIdAt(forward, id);
+					ants.setResting(id, 14);	//	As after every move
+					break;
+				case ReplayWriter.LEFT:
+					world.setAntDirection(id, (ants.getDirection(id) + 5) % 6);
+					break;
+				case ReplayWriter.RIGHT:
+					world.setAntDirection(id, (ants.getDirection(id) + 1) % 6);
+					break;
+				case ReplayWriter.PICKUP:
+					world.setAntHasFood(id, true);
+					world.setFoodAt(cell, world.foodAt(cell) - 1);
+					break;
+				case ReplayWriter.DROP:
+					world.setAntHasFood(id, false);
+					world.setFoodAt(cell, world.foodAt(cell) + 1);
+					break;
+				case ReplayWriter.DIED:
+					world.killSurroundedAnt(cell);
+					break;
+				case ReplayWriter.MARK:
+					world.setMarker(cell, ants.getColor(id), getVarint());
+					break;
+				case ReplayWriter.UNMARK:
+					world.clearMarker(cell, ants.getColor(id), getVarint());
+					break;
+			}
+		}
+		for (int draws = getVarint(); draws > 0; draws--) {
+			world.getRandGenerator().randomInt(1);
+		}
+		if (!hasStates) {
+			ants.setStatesKnown(false);
+			return;
+		}
+		int changed = getVarint();
+		id = 0;
+		for (int k = 0; k < changed; k++) {
+			id += getVarint();
+			int delta = getVarint();
+			ants.setState(id, ants.getState(id) + ((delta >>> 1) ^ -(delta & 1)));
+		}
+	}
+
+	/**
+	 * Reads a varint from the current block.
+	 * @return the number
+	 */
+	private int getVarint() {
+		int n = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = raw[pos++];
+			n |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return n;
+		}
+	}
+
+	/**
+	 * Reads a long from the current block, high byte first.
+	 * @return the number
+	 */
+	private long getLong() {
+		long n = 0;
+		for (int b = 0; b < 8; b++) {
+			n = (n << 8) | (raw[pos++] & 0xFF);
+		}
+		return n;
+	}
+
+	/**
+	 * Reads a string from the current block.
+	 * @return the string
+	 */
+	private String getString() {
+		int size = getVarint();
+		String s = new String(raw, pos, size, StandardCharsets.UTF_8);
+		pos += size;
+		return s;
+	}
+
+	/**
+	 * Reads bytes from a file offset.
+	 * @param offset the offset
+	 * @param size the number of bytes
+	 * @return the bytes, ready to be read
+	 * @throws IOException if the file cannot be read
+	 */
+	private ByteBuffer readAt(long offset, int size) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(size);
+		readFully(bytes, offset);
+		bytes.flip();
+		return bytes;
+	}
+
+	/**
+	 * Fills a buffer from a file offset.
+	 * @param bytes the buffer
+	 * @param offset the offset
+	 * @throws IOException if the file ends first or cannot be read
+	 */
+	private void readFully(ByteBuffer bytes, long offset) throws IOException {
+		while (bytes.hasRemaining()) {
+			int n = in.read(bytes, offset);
+			if (n < 0)
+				throw new IOException("Replay file truncated");
+			offset += n;
+		}
+	}
+}
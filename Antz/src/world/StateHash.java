@@ -0,0 +1,64 @@
+package world;
+
+/**
+ * Keys for the 64-bit hash of a game's state that the World and AntTable keep up to date as it changes.
+ *
+ * The hash is the sum of one key for each thing in the state: each cell's markers, each ant's position,
+ * direction, state, color, food and whether it is alive, and the RNG's seed. Food and resting count
+ * as that many times a key, for the cell or the ant. Being a sum, the hash is brought up to date by adding
+ * the key for a new value and taking away the key for the old, so no change needs more than that.
+ * Keys are mixed from what they stand for, so no tables of random numbers are needed, however large the map.
+ * @author JOH
+ * @version 1
+ */
+final class StateHash {
+
+	//	Kinds of key
+	static final int POSITION = 0, DIRECTION = 1, STATE = 2, CARRYING = 3, COLOR = 4, ALIVE = 5, RESTING = 6,
+			FOOD = 7, MARKERS = 8, SEED = 9;
+
+	private static final long[] SALTS = new long[10];	//	Keeps the keys of each kind apart
+	static {
+		for (int kind = 0; kind < SALTS.length; kind++) {
+			SALTS[kind] = mix(0x5DEECE66DL * (kind + 1));
+		}
+	}
+
+	/**
+	 * Private constructor; there is nothing to make.
+	 */
+	private StateHash() {
+	}
+
+	/**
+	 * Returns the key for one thing having one value.
+	 * @param kind the kind of key
+	 * @param index the ant's id or the cell's index
+	 * @param value the value
+	 * @return the key
+	 */
+	static long key(int kind, int index, int value) {
+		return mix(SALTS[kind] ^ ((long) index << 32 | (value & 0xFFFFFFFFL)));
+	}
+
+	/**
+	 * Returns the key for the RNG having a seed.
+	 * @param seed the seed
+	 * @return the key
+	 */
+	static long seedKey(long seed) {
+		return mix(SALTS[SEED] ^ mix(seed));
+	}
+
+	/**
+	 * Scrambles a number so that every bit of the result depends on every bit of it (the SplitMix64 finalizer).
+	 * @param x the number
+	 * @return the scrambled number
+	 */
+	private static long mix(long x) {
+		x += 0x9E3779B97F4A7C15L;
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+}
@@ -0,0 +1,139 @@
+package world;
+
+import enums.E_Color;
+
+/**
+ * What the display needs of a World at the end of one turn: the food, markers and ants in each cell, and the scores.
+ * 
+ * The World fills a snapshot on the game thread and hands it to the display whole, so the display never sees 
+ * half a turn and the game never waits for painting. Once handed over a snapshot is not changed again until the
+ * display gives it back. Terrain never changes, so it is read from the World itself.
+ * @author JOH
+ * @version 1
+ */
+public class TurnSnapshot {
+
+	int game = -1;					//	Which game on the World this was taken in; -1 if not filled yet
+	int turn = -1;					//	The turn this shows the end of; 0 for the ants just placed
+	int redScore, blackScore;		//	The scores
+	final int[] food;				//	Food particles in each cell
+	final short[] markers;			//	Markers in each cell: bits 0-5 red, bits 6-11 black
+	final byte[] ants;				//	The ant in each cell as color ordinal * 6 + direction ordinal, -1 if none
+	final int[] changedIn;			//	The turn each cell's ant, food or markers last changed in
+	
+	private static final E_Color[] COLORS = E_Color.values();
+	
+	/**
+	 * Constructor.
+	 * @param cells the number of cells in the map
+	 */
+	TurnSnapshot(int cells) {
+		food = new int[cells];
+		markers = new short[cells];
+		ants = new byte[cells];
+		changedIn = new int[cells];
+	}
+	
+	/**
+	 * Gets which game on the World this was taken in. A new game, or a jump to another turn of a recording,
+	 * starts a new one, and everything on display must then be drawn again.
+	 * @return the game
+	 */
+	public int getGame() {
+		return game;
+	}
+	
+	/**
+	 * Gets the turn this snapshot shows the end of.
+	 * @return the turn, or 0 if it shows the ants just placed
+	 */
+	public int getTurn() {
+		return turn;
+	}
+	
+	/**
+	 * Gets the red score.
+	 * @return the score
+	 */
+	public int getRedScore() {
+		return redScore;
+	}
+	
+	/**
+	 * Gets the black score.
+	 * @return the score
+	 */
+	public int getBlackScore() {
+		return blackScore;
+	}
+	
+	/**
+	 * Returns how much food is in a cell.
+	 * @param i the index of the cell
+	 * @return the amount of food
+	 */
+	public int foodAt(int i) {
+		return food[i];
+	}
+	
+	/**
+	 * Checks if a marker of the given color and number is in a cell.
+	 * @param i the index of the cell
+	 * @param color the color to check
+	 * @param marker the number to check
+	 * @return true if present, false otherwise
+	 */
+	public boolean checkMarker(int i, E_Color color, int marker) {
+		return (markers[i] & (1 << (color.ordinal() * 6 + marker))) != 0;
+	}
+	
+	/**
+	 * Checks if any marker of the given color is in a cell.
+	 * @param i the index of the cell
+	 * @param color the color to check
+	 * @return true if present, false otherwise
+	 */
+	public boolean checkAnyMarker(int i, E_Color color) {
+		return (markers[i] & (0x3F << (color.ordinal() * 6))) != 0;
+	}
+	
+	/**
+	 * Returns true if there is an ant in a cell.
+	 * @param i the index of the cell
+	 * @return true if there is an ant
+	 */
+	public boolean isAnt(int i) {
+		return ants[i] != -1;
+	}
+	
+	/**
+	 * Gets the color of the ant in a cell.
+	 * @param i the index of the cell
+	 * @return the color, or null if there is no ant
+	 */
+	public E_Color antColorAt(int i) {
+		if (ants[i] == -1)
+			return null;
+		return COLORS[ants[i] / 6];
+	}
+	
+	/**
+	 * Gets the direction the ant in a cell is facing.
+	 * @param i the index of the cell
+	 * @return the direction as an E_Direction ordinal, or -1 if there is no ant
+	 */
+	public int antDirectionAt(int i) {
+		if (ants[i] == -1)
+			return -1;
+		return ants[i] % 6;
+	}
+	
+	/**
+	 * Returns the turn a cell's ant, food or markers last changed in.
+	 * @param i the index of the cell
+	 * @return the turn
+	 */
+	public int changedIn(int i) {
+		return changedIn[i];
+	}
+}
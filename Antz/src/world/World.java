@@ -9,6 +9,8 @@ import java.io.FileWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.SwingUtilities;
 import enums.E_Color;
 import enums.E_Condition;
@@ -17,39 +19,157 @@ import enums.E_Terrain;
 import ai.StateMachine;
 import program.Ant;
 import program.AntLogger;
+import program.RandGenerator;
 import ui.GameplayScreen;
 
 /**
  * Represents an Ant world.
+ * 
+ * The map is held as one flat array per concern, indexed by y * width + x. 
+ * Cell objects are only views onto these arrays, made only for the display and the State_* objects that ask for them.
+ * 
+ * A 64-bit hash of the whole game state is kept up to date as the food, markers and ants change
+ * (see StateHash), so two games can be compared after any turn without walking the map.
+ * 
+ * A world can instead step its ants the slow way, through the State_* objects, as a reference for the rest to be
+ * checked against (see LockstepRunner). It then senses, finds neighbours, counts enemies, rests and scores as 
+ * the spec is written, from the terrain, food, ants and markers themselves, and not from the sense bits, 
+ * neighbour table, running counts, timing wheel or running scores that the fast path relies on.
  * @author JOH
- * @version 1
+ * @version 4
  */
 public class World {
 	
-	private Cell[][] cells;							//	The grid of cells which comprise this world
-	private Cell[][] unchangedCells;
-	private ArrayList<Ant> ants;					//	The ants in the world
+	private int width, height;						//	Dimensions of the map
+	private byte[] terrain;							//	Terrain of each cell as an E_Terrain ordinal; never changes
+	private int[] food;								//	Food particles in each cell
+	private int[] senses;							//	What can be sensed in each cell: markers in bits 0-11, then the *_BIT flags below
+	private int[] antAt;							//	Id of the ant in each cell, -1 if none
+	private byte[][] adjacent;						//	Number of ants of each color next to each cell: [E_Color ordinal][cell]
+	private int[] changedIn;						//	The turn each cell's ant, food or markers last changed in, 0 for setting up
+	private int[] unchangedFood;					//	Food in each cell at the start of a game
+	private Cell[] cellViews;						//	A Cell view of each cell, made the first time it is asked for; null until any is
+	private int[] neighbours;						//	Index of the neighbour of each cell in each direction: [cell * 6 + direction], -1 if off the map
+	private AntTable ants;							//	The ants in the world, by id
+	private boolean checkAntIndex = false;			//	If true, validate the ant positions and sense bits against the grid each turn
 	private StateMachine redBrain, blackBrain;		//	The two opposing player brains
 	private String redName, blackName;				//  Team names
-	private int redScore, blackScore;				//	Running total of scores
+	private int redScore, blackScore;				//	Running total of scores, kept up to date by every food change on an anthill
+	private int scoreCheckInterval = 0;				//	If > 0, cross-check the running scores against a full scan every this many turns
+	private long cellHash;							//	Sum of the state hash keys of every cell's food and markers
+	private int hashCheckInterval = 0;				//	If > 0, cross-check the state hash against a full scan every this many turns
+	private boolean stepByStates = false;			//	If true, step ants the slow way, through the brains' State_* objects and the spec's own rules
 	private GameplayScreen screen;
-	private static final int MAXTURNS = 300000;
-	private int sleepAmount = 0;
-	private boolean isPaused;
+	static final int MAXTURNS = 300000;
+	private volatile int sleepAmount = 0;			//	Set from the EDT by the speed control
+	private volatile boolean isPaused;				//	Set from the EDT by the pause control
 	private int turn;
-	private AntLogger logger;
+	private int game;								//	Counts the games played on this world
+	
+	//	Snapshots for the display: the game thread fills one while the display shows the other
+	private AtomicReference<TurnSnapshot> readySnapshot = new AtomicReference<>();	//	The newest snapshot, until the display takes it
+	private AtomicReference<TurnSnapshot> freeSnapshot = new AtomicReference<>();	//	A snapshot the display has finished with
+	private TurnSnapshot backSnapshot;				//	The snapshot the game thread fills next; null until one is free
+	private TurnSnapshot frontSnapshot;				//	The snapshot the display is showing; only used on the EDT
+	private AntLogger logger;						//	Dumps the world after the turns it selects; null for no dump
+	private ReplayWriter recorder;					//	Records the next game played; null for no recording
+	private ReplayReader replay;					//	The recording being shown; null when playing a game
+	private AtomicInteger seekTo = new AtomicInteger(-1);	//	Set from the EDT to the turn of the recording to jump to; -1 for none
+	private long seed = RandGenerator.DEFAULT_SEED;	//	Each game starts its RNG from this seed
+	private RandGenerator rng;						//	This game's RNG
+	
+	private static final byte ROCKY = (byte) E_Terrain.ROCKY.ordinal();
+	private static final byte CLEAR = (byte) E_Terrain.CLEAR.ordinal();
+	private static final byte RED_ANTHILL = (byte) E_Terrain.RED_ANTHILL.ordinal();
+	private static final byte BLACK_ANTHILL = (byte) E_Terrain.BLACK_ANTHILL.ordinal();
+	private static final E_Terrain[] TERRAINS = E_Terrain.values();
+	
+	//	Masks into a cell's markers, by E_Color ordinal: each marker on its own, and all of a color
+	private static final int[][] MARKER_MASKS = {{0x001, 0x002, 0x004, 0x008, 0x010, 0x020}, 
+		{0x040, 0x080, 0x100, 0x200, 0x400, 0x800}};
+	private static final int[] ALL_MARKERS = {0x03F, 0xFC0};
+	
+	//	The rest of a cell's sense bits
+	private static final int RED_ANT_BIT = 1 << 12, BLACK_ANT_BIT = 1 << 13;
+	private static final int RED_ANT_WITH_FOOD_BIT = 1 << 14, BLACK_ANT_WITH_FOOD_BIT = 1 << 15;
+	private static final int FOOD_BIT = 1 << 16, ROCK_BIT = 1 << 17;
+	private static final int RED_ANTHILL_BIT = 1 << 18, BLACK_ANTHILL_BIT = 1 << 19;
+	private static final int ANT_BITS = RED_ANT_BIT | BLACK_ANT_BIT | RED_ANT_WITH_FOOD_BIT | BLACK_ANT_WITH_FOOD_BIT;
+	//	By E_Color ordinal
+	private static final int[] ANT_BIT = {RED_ANT_BIT, BLACK_ANT_BIT};
+	private static final int[] ANT_WITH_FOOD_BIT = {RED_ANT_WITH_FOOD_BIT, BLACK_ANT_WITH_FOOD_BIT};
+	private static final int[] ANTHILL_BIT = {RED_ANTHILL_BIT, BLACK_ANTHILL_BIT};
+	
+	//	The sense bits each condition holds on, for an ant of each color: [E_Color ordinal][E_Condition ordinal]
+	private static final int[][] CONDITION_MASKS = new int[E_Color.values().length][E_Condition.values().length];
+	static {
+		for (E_Color c : E_Color.values()) {
+			int me = c.ordinal(), foe = c.otherColor().ordinal();
+			for (E_Condition cond : E_Condition.values()) {
+				int mask = 0;
+				switch (cond)
+				{
+					case FRIEND: mask = ANT_BIT[me]; break;
+					case FOE: mask = ANT_BIT[foe]; break;
+					case FRIENDWITHFOOD: mask = ANT_WITH_FOOD_BIT[me]; break;
+					case FOEWITHFOOD: mask = ANT_WITH_FOOD_BIT[foe]; break;
+					case FOOD: mask = FOOD_BIT; break;
+					case ROCK: mask = ROCK_BIT; break;
+					case MARKER: mask = 0; break;	//	Never holds without a marker number
+					case MARKER0: mask = MARKER_MASKS[me][0]; break;
+					case MARKER1: mask = MARKER_MASKS[me][1]; break;
+					case MARKER2: mask = MARKER_MASKS[me][2]; break;
+					case MARKER3: mask = MARKER_MASKS[me][3]; break;
+					case MARKER4: mask = MARKER_MASKS[me][4]; break;
+					case MARKER5: mask = MARKER_MASKS[me][5]; break;
+					case FOEMARKER: mask = ALL_MARKERS[foe]; break;
+					case HOME: mask = ANTHILL_BIT[me]; break;
+					case FOEHOME: mask = ANTHILL_BIT[foe]; break;
+				}
+				CONDITION_MASKS[me][cond.ordinal()] = mask;
+			}
+		}
+	}
+	
+	/**
+	 * Constructor. Also used to rebuild the map of a recorded game.
+	 * @param width the width of the map
+	 * @param height the height of the map
+	 * @param terrain the terrain of each cell; shared, never modified
+	 * @param food the food in each cell at the start of a game; shared, never modified
+	 */
+	World(int width, int height, byte[] terrain, int[] food) {
+		this(width, height, terrain, food, buildNeighbours(width, height));
+	}
 	
 	/**
 	 * Private constructor.
+	 * @param width the width of the map
+	 * @param height the height of the map
+	 * @param terrain the terrain of each cell; shared, never modified
+	 * @param food the food in each cell at the start of a game; shared, never modified
+	 * @param neighbours the neighbour table for a map of this size; shared, never modified
 	 */
-	private World(Cell[][] cells) {
-		this.cells = cells;
-		for (int i = 0; i < cells.length; i ++) {
-			for (int j = 0 ; j < cells[0].length; j ++) {
-				cells[i][j].setWorld(this);
-			}
+	private World(int width, int height, byte[] terrain, int[] food, int[] neighbours) {
+		this.width = width;
+		this.height = height;
+		this.terrain = terrain;
+		this.neighbours = neighbours;
+		this.unchangedFood = food;
+		this.food = food.clone();
+		this.senses = new int[width * height];
+		this.changedIn = new int[width * height];
+		this.antAt = new int[width * height];
+		Arrays.fill(antAt, -1);
+		resetSenses();
+		this.adjacent = new byte[E_Color.values().length][width * height];
+		int anthills = 0;
+		for (int i = 0; i < terrain.length; i++) {
+			if (terrain[i] == RED_ANTHILL || terrain[i] == BLACK_ANTHILL)
+				anthills++;
 		}
-		this.unchangedCells = deepCopyCells(this.cells);	
+		this.ants = new AntTable(this, anthills);
+		this.rng = new RandGenerator(seed);
 		//logger = new AntLogger(this);
 	}
 	
@@ -59,35 +179,17 @@ public class World {
 	 */
 	public void beginGame() {
 
-		ants = new ArrayList<>();
-		
-		//reset scores for a new game:
-		redScore = 0;
-		blackScore = 0;
-				
-		//reset the map (markers, food, ants):
-		cells = deepCopyCells(unchangedCells);
+		resetGame();
 		
 		if(redBrain != null && redName != null && blackBrain != null && blackName != null){
-			//create GUI from EDT:
-			Runnable createGameplayScreen= new Runnable() {
-				public void run() {
-					screen = new GameplayScreen(World.this);
-				}
-			};
-			try {
-				SwingUtilities.invokeAndWait(createGameplayScreen);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}	
-	
+			openScreen();
 		
 			//set up
 			setStartingAnts();
+			publishSnapshot(true);
 
-			if (logger != null) {
-				logger.logTurn();
-			}
+			logTurn();
+			recordTurn();
 				
 			//run game loop
 			update(); 
@@ -95,21 +197,188 @@ public class World {
 		}
 	}
 	
+	/**
+	 * Shows a recorded game, without running the brains.
+	 * @param replay the recording, opened on this world
+	 */
+	public void beginReplay(ReplayReader replay) {
+		
+		this.replay = replay;
+		resetGame();
+		openScreen();
+		
+		//set up
+		replay.readTurn(this);
+		publishSnapshot(true);
+		
+		//run replay loop
+		updateReplay();
+	}
+	
+	/**
+	 * Creates the snapshots for the display, if this world does not have them yet, and opens the gameplay screen.
+	 */
+	private void openScreen() {
+		//two snapshots for the display, made once per world
+		if (backSnapshot == null && freeSnapshot.get() == null && readySnapshot.get() == null) {
+			backSnapshot = new TurnSnapshot(terrain.length);
+			freeSnapshot.set(new TurnSnapshot(terrain.length));
+		}
+		
+		//create GUI from EDT:
+		Runnable createGameplayScreen= new Runnable() {
+			public void run() {
+				screen = new GameplayScreen(World.this);
+			}
+		};
+		try {
+			SwingUtilities.invokeAndWait(createGameplayScreen);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}	
+	}
+	
+	/**
+	 * Plays a full game of MAXTURNS turns without any GUI.
+	 * No Swing/AWT classes are touched, nothing is posted to the EDT and the game never sleeps.
+	 * @return the result of the game, or null if either brain has not been set
+	 */
+	public GameResult runHeadless() {
+		return runHeadless(MAXTURNS);
+	}
+	
+	/**
+	 * Plays a game of the given number of turns without any GUI.
+	 * @param maxTurns the number of turns to play
+	 * @return the result of the game, or null if either brain has not been set
+	 */
+	public GameResult runHeadless(int maxTurns) {
+		if (redBrain == null || redName == null || blackBrain == null || blackName == null)
+			return null;
+		
+		long startTime = System.nanoTime();
+		resetGame();
+		setStartingAnts();
+		
+		logTurn();
+		recordTurn();
+		
+		for (turn = 1; turn <= maxTurns; turn++) {
+			playTurn();
+			logTurn();
+			recordTurn();
+		}
+		
+		if (logger != null) {
+			logger.flush();
+		}
+		finishRecording();
+		
+		return new GameResult(redName, blackName, redScore, blackScore, maxTurns, 
+				(System.nanoTime() - startTime) / 1000000);
+	}
+	
+	/**
+	 * Starts a game to be played a turn at a time with playNextTurn(), without any GUI, logging or recording.
+	 */
+	void beginStepping() {
+		resetGame();
+		setStartingAnts();
+	}
+	
+	/**
+	 * Plays the next turn of a game started with beginStepping().
+	 */
+	void playNextTurn() {
+		turn++;
+		playTurn();
+	}
+	
+	/**
+	 * Resets the scores, ants and map ready for a new game.
+	 * Everything is restored in place from the unchanged map, so back-to-back games allocate no new storage.
+	 */
+	private void resetGame() {
+		ants.clear();
+		turn = 0;
+		game++;
+		
+		//reset the map (markers, food, ants); terrain never changes
+		System.arraycopy(unchangedFood, 0, food, 0, food.length);
+		resetSenses();
+		Arrays.fill(changedIn, 0);
+		Arrays.fill(antAt, -1);
+		for (byte[] counts : adjacent) {
+			Arrays.fill(counts, (byte) 0);
+		}
+		
+		//reset scores and the hash for a new game; from here on they are updated as food changes
+		calcScores();
+		cellHash = computeCellHash();
+		
+		//restart the RNG so every game is reproducible on its own
+		rng.setSeed(seed);
+	}
+	
+	/**
+	 * Sets every cell's sense bits from its terrain and food alone, with no markers or ants.
+	 */
+	private void resetSenses() {
+		for (int i = 0; i < senses.length; i++) {
+			senses[i] = terrainSenses(terrain[i]) | (food[i] > 0 ? FOOD_BIT : 0);
+		}
+	}
+	
+	/**
+	 * Returns the sense bits that come from a cell's terrain.
+	 * @param t the terrain, as an E_Terrain ordinal
+	 * @return the bits
+	 */
+	private static int terrainSenses(byte t) {
+		if (t == ROCKY)
+			return ROCK_BIT;
+		if (t == RED_ANTHILL)
+			return RED_ANTHILL_BIT;
+		if (t == BLACK_ANTHILL)
+			return BLACK_ANTHILL_BIT;
+		return 0;
+	}
+	
+	/**
+	 * Returns the sense bits an ant sets in the cell it is in.
+	 * @param id the ant's id
+	 * @return the bits
+	 */
+	private int antSenses(int id) {
+		int c = ants.getColor(id).ordinal();
+		return ants.hasFood(id) ? ANT_BIT[c] | ANT_WITH_FOOD_BIT[c] : ANT_BIT[c];
+	}
+	
+	/**
+	 * Checks every cell's sense bits against its terrain, food, markers and ant.
+	 * @return true if they all match, false otherwise
+	 */
+	public boolean sensesAreConsistent() {
+		for (int i = 0; i < senses.length; i++) {
+			int expected = terrainSenses(terrain[i]) | (food[i] > 0 ? FOOD_BIT : 0) | (senses[i] & 0xFFF);
+			if (antAt[i] != -1)
+				expected |= antSenses(antAt[i]);
+			if (senses[i] != expected)
+				return false;
+		}
+		return true;
+	}
+	
 	/**
 	 * Sets up the initial ants in the world.
+	 * Ids are handed out in cell order, starting from 0.
 	 */
 	private void setStartingAnts() {
-		for (int i = 0; i < cells[0].length; i ++) {
-			for (int j = 0 ; j < cells.length; j ++) {
-				if (cells[j][i].getTerrain() == E_Terrain.BLACK_ANTHILL) {
-					Ant ant = new Ant(E_Color.BLACK, blackBrain);
-					setAntAt(new Position(j, i), ant);
-					ants.add(ant);
-				} else if (cells[j][i].getTerrain() == E_Terrain.RED_ANTHILL) {
-					Ant ant = new Ant(E_Color.RED, redBrain);
-					setAntAt(new Position(j, i), ant);
-					ants.add(ant);
-				}
+		for (int i = 0; i < terrain.length; i ++) {
+			if (terrain[i] == BLACK_ANTHILL) {
+				setAntIdAt(i, ants.add(E_Color.BLACK, i));
+			} else if (terrain[i] == RED_ANTHILL) {
+				setAntIdAt(i, ants.add(E_Color.RED, i));
 			}
 		}
 	}
@@ -129,40 +398,143 @@ public class World {
 				}
 			}
 			
-			for (Ant ant : ants) {
-				if (ant.isAlive()) {
-					if (ant.getResting() > 0) {
-						ant.setResting(ant.getResting() - 1);
-					} else {
-						Position p = findAnt(ant.getId());
-						Cell cell = cells[p.x][p.y];
-						ant.getStateMachine().step(ant, cell);
-					}
+			playTurn();
+			
+			//	The display picks this up at its own frame rate, skipping any turns in between; the last turn must be shown
+			if (turn == MAXTURNS) {
+				while (!publishSnapshot(true)) {
+					Thread.yield();
 				}
+			} else {
+				publishSnapshot(false);
 			}
-			calcScores();
-			
-			//update GUI in EDT
-			Runnable updateDisplay = new Runnable() {
-				public void run() { screen.update(); }
-			};
-			SwingUtilities.invokeLater(updateDisplay);
-			//screen.update();					
 						
-			//	dump turn info
-			if (logger != null) {
-				//	Choose which turns to log here
-				if (turn < 10000)
-					logger.logTurn();
-			}
+			logTurn();
+			recordTurn();
 
 			//	Variable speed
-			try {
-				Thread.sleep(sleepAmount);
-			} catch (InterruptedException e) {
-				// Surely not a problem...
-				e.printStackTrace();
-			}	
+			if (sleepAmount > 0) {
+				try {
+					Thread.sleep(sleepAmount);
+				} catch (InterruptedException e) {
+					// Surely not a problem...
+					e.printStackTrace();
+				}
+			}
+		}
+		
+		if (logger != null) {
+			logger.flush();
+		}
+		finishRecording();
+	}
+	
+	/**
+	 * Runs a recording: plays it forward at the set speed, jumps to any turn asked for, and holds at the last turn.
+	 * Never returns; the recording is shown until the screen is closed.
+	 */
+	private void updateReplay() {
+		
+		while (true) {
+			int target = seekTo.getAndSet(-1);
+			if (target != -1) {
+				replay.seek(this, target);
+				//	Turns may now run backwards, so the display starts again from a full copy
+				game++;
+				Arrays.fill(changedIn, 0);
+				while (!publishSnapshot(true)) {
+					Thread.yield();
+				}
+			} else if (isPaused || turn == replay.getLastTurn()) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			} else {
+				replay.readTurn(this);
+				if (turn == replay.getLastTurn()) {
+					while (!publishSnapshot(true)) {
+						Thread.yield();
+					}
+				} else {
+					publishSnapshot(false);
+				}
+				
+				//	Variable speed
+				if (sleepAmount > 0) {
+					try {
+						Thread.sleep(sleepAmount);
+					} catch (InterruptedException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Plays a single turn: every living ant that is not resting takes one step, in id order.
+	 * Resting ants are left in the ant table's timing wheel until they wake; 
+	 * an ant killed earlier in the turn is skipped, as it is no longer awake.
+	 */
+	private void playTurn() {
+		ants.startTurn(turn);
+		if (stepByStates) {
+			//	As the spec has it: every living ant either counts down its rest or takes a step
+			for (int id = ants.nextAlive(0); id >= 0; id = ants.nextAlive(id + 1)) {
+				if (!ants.countDownRest(id))
+					getBrain(ants.getColor(id)).stepByStates(this, id);
+			}
+			//	The scores too are taken from the anthills, not kept running
+			calcScores();
+		} else {
+			for (int id = ants.nextAwake(0); id >= 0; id = ants.nextAwake(id + 1)) {
+				getBrain(ants.getColor(id)).step(this, id);
+			}
+		}
+		if (scoreCheckInterval > 0 && turn % scoreCheckInterval == 0 && !scoresAreConsistent()) {
+			throw new IllegalStateException("Running scores out of step with the map after turn " + turn);
+		}
+		
+		if (hashCheckInterval > 0 && turn % hashCheckInterval == 0 && getStateHash() != computeStateHash()) {
+			throw new IllegalStateException("State hash out of step with the game after turn " + turn);
+		}
+		
+		if (checkAntIndex && !antIndexIsConsistent()) {
+			throw new IllegalStateException("Ant positions out of step with the grid after turn " + turn);
+		}
+		
+		if (checkAntIndex && !sensesAreConsistent()) {
+			throw new IllegalStateException("Sense bits out of step with the grid after turn " + turn);
+		}
+	}
+	
+	/**
+	 * Dumps the current turn to the logger, if there is one and it has selected this turn.
+	 */
+	private void logTurn() {
+		if (logger != null && logger.isLogged(turn)) {
+			logger.logTurn();
+		}
+	}
+	
+	/**
+	 * Records the current turn, if this game is being recorded.
+	 */
+	private void recordTurn() {
+		if (recorder != null) {
+			recorder.recordTurn(this);
+		}
+	}
+	
+	/**
+	 * Ends the recording of this game, if there is one; later games are not recorded.
+	 */
+	private void finishRecording() {
+		if (recorder != null) {
+			recorder.close();
+			recorder = null;
 		}
 	}
 	
@@ -174,77 +546,258 @@ public class World {
 	}
 	
 	/**
-	 * Calculates the current score (1 for each food particle at home anthill).
+	 * Calculates the current score (1 for each food particle at home anthill) with a full scan of the map.
 	 */
 	private void calcScores() {
 		blackScore = 0;
 		redScore = 0;
-		for (int i = 0; i < cells.length; i ++) {
-			for (int j = 0 ; j < cells[0].length; j ++) {
-				if (cells[i][j].getTerrain() == E_Terrain.BLACK_ANTHILL) {
-					blackScore += cells[i][j].getFoodAmount();
-				} else if (cells[i][j].getTerrain() == E_Terrain.RED_ANTHILL) {
-					redScore += cells[i][j].getFoodAmount();
-				}
+		for (int i = 0; i < terrain.length; i ++) {
+			if (terrain[i] == BLACK_ANTHILL) {
+				blackScore += food[i];
+			} else if (terrain[i] == RED_ANTHILL) {
+				redScore += food[i];
 			}
 		}
 	}
 	
+	/**
+	 * Checks the running scores against a full scan of the map.
+	 * @return true if they match, false otherwise
+	 */
+	public boolean scoresAreConsistent() {
+		int red = redScore, black = blackScore;
+		calcScores();
+		boolean consistent = red == redScore && black == blackScore;
+		redScore = red;
+		blackScore = black;
+		return consistent;
+	}
+	
+	/**
+	 * Turns on/off cross-checking of the running scores against a full scan of the map.
+	 * Intended for tests; a mismatch raises an IllegalStateException.
+	 * @param scoreCheckInterval check every this many turns, or 0 never to check
+	 */
+	public void setScoreChecking(int scoreCheckInterval) {
+		this.scoreCheckInterval = scoreCheckInterval;
+	}
+	
+	/**
+	 * Chooses how ants are stepped: through the brains' State_* objects and the Ant and Cell views, 
+	 * exactly as the spec is written, or through the brains' compiled tables, which is much faster.
+	 * Stepping through the states also senses, finds neighbours, counts enemies, rests and scores the slow way,
+	 * so that nothing the fast path relies on is shared. Both must play the same game; see LockstepRunner.
+	 * Only to be changed between games.
+	 * @param stepByStates true to step through the State_* objects
+	 */
+	public void setStepByStates(boolean stepByStates) {
+		this.stepByStates = stepByStates;
+		ants.setCountdown(stepByStates);
+	}
+	
+	/**
+	 * Turns on/off cross-checking of the state hash against a full scan of the game.
+	 * Intended for tests; a mismatch raises an IllegalStateException.
+	 * @param hashCheckInterval check every this many turns, or 0 never to check
+	 */
+	public void setHashChecking(int hashCheckInterval) {
+		this.hashCheckInterval = hashCheckInterval;
+	}
+	
+	/**
+	 * Returns the hash of the whole state of the game as it stands: the food and markers in every cell, 
+	 * every ant's position, direction, state, resting, food, color and life, and the RNG's seed.
+	 * Games in the same state have the same hash; games in different states almost never do.
+	 * A world showing a replay has the hash the recorded game had at the same turn, if the replay
+	 * was recorded with ant states or the turn is a keyframe.
+	 * @return the hash
+	 */
+	public long getStateHash() {
+		return cellHash + ants.getHash() + StateHash.seedKey(rng.getSeed());
+	}
+	
+	/**
+	 * Works out the hash of the state of the game afresh, with a full scan of the map and the ants.
+	 * @return the hash, as getStateHash() should give
+	 */
+	public long computeStateHash() {
+		return computeCellHash() + ants.computeHash() + StateHash.seedKey(rng.getSeed());
+	}
+	
+	/**
+	 * Works out the cells' part of the state hash with a full scan of the map.
+	 * @return the sum of the keys of every cell
+	 */
+	private long computeCellHash() {
+		long sum = 0;
+		for (int i = 0; i < terrain.length; i++) {
+			sum += StateHash.key(StateHash.MARKERS, i, senses[i] & 0xFFF);
+			if (food[i] != 0)
+				sum += StateHash.key(StateHash.FOOD, i, 0) * food[i];
+		}
+		return sum;
+	}
+	
+	/**
+	 * Brings the state hash up to date with a change to a cell's markers.
+	 * @param i the index of the cell
+	 * @param from the markers before, as in bits 0-11 of the cell's sense bits
+	 * @param to the markers after
+	 */
+	private void markersChanged(int i, int from, int to) {
+		cellHash += StateHash.key(StateHash.MARKERS, i, to) - StateHash.key(StateHash.MARKERS, i, from);
+	}
+	
 	/**
 	 * Checks if ant is surrounded and must therefore be killed.
 	 * @param p the position to check
 	 */
 	public void checkForSurroundedAnts(Position p)
 	{
-		checkForSurroundedAntAt(p);
-		for (int d = 0; d < 6; d++) {
-			checkForSurroundedAntAt(adjacentCell(p, E_Direction.values()[d]).getPosition());
+		if (!stepByStates) {
+			checkForSurroundedAnts(indexOf(p));
+			return;
+		}
+		//	The slow way: the enemies round each cell are counted afresh, and the neighbours found from the spec
+		checkForSurroundedAntBySpec(p);
+		for (E_Direction d : E_Direction.values()) {
+			Position nb = adjacentPosition(p, d);
+			if (nb != null)
+				checkForSurroundedAntBySpec(nb);
+		}
+	}
+	
+	/**
+	 * Checks an individual hex for a surrounded ant by looking at each of its neighbours, as the spec does.
+	 * @param p the position to check
+	 */
+	private void checkForSurroundedAntBySpec(Position p) {
+		int a = antAt[indexOf(p)];
+		if (a == -1)
+			return;
+		E_Color foe = ants.getColor(a).otherColor();
+		int n = 0;
+		for (E_Direction d : E_Direction.values()) {
+			Position nb = adjacentPosition(p, d);
+			if (nb != null && antAt[indexOf(nb)] != -1 && ants.getColor(antAt[indexOf(nb)]) == foe)
+				n++;
+		}
+		if (n >= 5)
+			killSurroundedAnt(indexOf(p));
+	}
+	
+	/**
+	 * Checks if the ant in a cell, or any of its neighbours, is surrounded and must therefore be killed.
+	 * @param i the index of the cell to check
+	 */
+	public void checkForSurroundedAnts(int i)
+	{
+		checkForSurroundedAntAt(i);
+		for (int d = i * 6; d < i * 6 + 6; d++) {
+			checkForSurroundedAntAt(neighbours[d]);
 		}
 	}
 
 	/**
 	 * Checks an individual hex for a surrounded ant.
-	 * @param p the position to check
+	 * Uses the running count of enemies next to the cell, so costs the same however crowded it is.
+	 * @param i the index of the cell to check
 	 */
-	private void checkForSurroundedAntAt(Position p) {
-		if (someAntIsAt(p)) {
-			Ant a = antAt(p);
-			if (adjacentAnts(p, a.getColor().otherColor()) >= 5) {
-				killAntAt(p);
-				setFoodAt(p, foodAt(p) + 3);
-				if (a.hasFood()) {
-					setFoodAt(p, foodAt(p) + 1);
-				}
+	private void checkForSurroundedAntAt(int i) {
+		int a = antAt[i];
+		if (a != -1) {
+			if (adjacentAnts(i, ants.getColor(a).otherColor()) >= 5) {
+				killSurroundedAnt(i);
 			}
 		}
 	}
+	
+	/**
+	 * Kills the surrounded ant in a cell, leaving the food it turns into.
+	 * @param i the index of the cell
+	 */
+	void killSurroundedAnt(int i) {
+		int a = antAt[i];
+		if (recorder != null)
+			recorder.event(a, ReplayWriter.DIED);
+		killAntAt(i);
+		setFoodAt(i, foodAt(i) + 3);
+		if (ants.hasFood(a)) {
+			setFoodAt(i, foodAt(i) + 1);
+		}
+	}
 
 	/**
-	 * Returns the number of adjacent ants to a given position
-	 * @param p the position to check
+	 * Returns the number of adjacent ants to a given cell
+	 * @param i the index of the cell to check
 	 * @param otherColor the enemy color
 	 * @return
 	 */
-	private int adjacentAnts(Position p, E_Color otherColor) {
-		int n = 0;
-		for (int d = 0; d < 6 ; d++) {
-			if (someAntIsAt(adjacentCell(p, E_Direction.values()[d]).getPosition()) && antAt(adjacentCell(p, E_Direction.values()[d]).getPosition()).getColor() == otherColor)
-			{
-				n++;
-			}
+	private int adjacentAnts(int i, E_Color otherColor) {
+		return adjacent[otherColor.ordinal()][i];
+	}
+	
+	/**
+	 * Adds to the running count of ants of a color next to each neighbour of a cell.
+	 * @param i the index of the cell an ant has entered or left
+	 * @param c the color of the ant
+	 * @param change +1 if the ant entered, -1 if it left
+	 */
+	private void updateAdjacentCounts(int i, E_Color c, int change) {
+		updateAdjacentCounts(adjacent[c.ordinal()], i, change);
+	}
+	
+	/**
+	 * Adds to a count for each neighbour of a cell.
+	 * @param counts the counts, by cell
+	 * @param i the index of the cell
+	 * @param change the amount to add
+	 */
+	private void updateAdjacentCounts(byte[] counts, int i, int change) {
+		for (int d = i * 6; d < i * 6 + 6; d++) {
+			int nb = neighbours[d];
+			if (nb != -1)
+				counts[nb] += change;
 		}
-		return n;
 	}
 
 
 	/**
 	 * Returns a specific cell.
-	 * @param x the x coordinate
-	 * @param y the y coordinate
+	 * @param pos the position
 	 * @return the cell
 	 */
 	public Cell getCellAt(Position pos) {
-		return cells[pos.x][pos.y];
+		return getCellAt(indexOf(pos));
+	}
+	
+	/**
+	 * Returns a specific cell, making its view the first time it is asked for.
+	 * Views hold nothing of their own, so if two threads race to make one, either will do.
+	 * @param i the index of the cell
+	 * @return the cell
+	 */
+	public Cell getCellAt(int i) {
+		Cell[] views = cellViews;
+		if (views == null) {
+			views = new Cell[width * height];
+			cellViews = views;
+		}
+		Cell cell = views[i];
+		if (cell == null) {
+			cell = new Cell(this, i, new Position(i % width, i / width));
+			views[i] = cell;
+		}
+		return cell;
+	}
+	
+	/**
+	 * Returns the index of a position within the map arrays.
+	 * @param pos the position
+	 * @return the index
+	 */
+	public int indexOf(Position pos) {
+		return pos.y * width + pos.x;
 	}
 	
 	/**
@@ -252,7 +805,7 @@ public class World {
 	 * @return the width
 	 */
 	public int getWidth() {
-		return cells.length;
+		return width;
 	}
 	
 	/**
@@ -260,46 +813,200 @@ public class World {
 	 * @return the height
 	 */
 	public int getHeight() {
-		return cells[0].length;
+		return height;
+	}
+	
+	/**
+	 * Returns the turn a cell's ant, food or markers last changed in.
+	 * The display redraws a cell only if this is later than the turn it last drew the cell for.
+	 * @param i the index of the cell
+	 * @return the turn, or 0 if unchanged since the ants were placed
+	 */
+	public int changedIn(int i) {
+		return changedIn[i];
+	}
+	
+	/**
+	 * Returns a cell's markers.
+	 * @param i the index of the cell
+	 * @return the markers, as in bits 0-11 of the cell's sense bits
+	 */
+	int markersAt(int i) {
+		return senses[i] & 0xFFF;
+	}
+	
+	/**
+	 * Sets all of a cell's markers at once.
+	 * @param i the index of the cell
+	 * @param markers the markers, as in bits 0-11 of the cell's sense bits
+	 */
+	void setMarkers(int i, int markers) {
+		markersChanged(i, senses[i] & 0xFFF, markers & 0xFFF);
+		senses[i] = (senses[i] & ~0xFFF) | (markers & 0xFFF);
+		changedIn[i] = turn;
+	}
+	
+	/**
+	 * Returns the food in a cell at the start of a game.
+	 * @param i the index of the cell
+	 * @return the amount of food
+	 */
+	int unchangedFoodAt(int i) {
+		return unchangedFood[i];
+	}
+	
+	/**
+	 * Returns the terrain of a cell.
+	 * @param i the index of the cell
+	 * @return the terrain
+	 */
+	public E_Terrain terrainAt(int i) {
+		return TERRAINS[terrain[i]];
 	}
 	
 	/**
 	 * Checks if any ant is at a particular location.
-	 * @param x the x-coordinate
-	 * @param y the y coordinate
+	 * @param pos the position
 	 * @return true if ant at location, false otherwise
 	 */
 	public boolean someAntIsAt(Position pos) {
-		return cells[pos.x][pos.y].isAnt();
+		return antAt[indexOf(pos)] != -1;
 	}
 	
 	/**
 	 * Gets the ant at a particular location.
-	 * @param x the x-coordinate
-	 * @param y the y coordinate
+	 * @param pos the position
 	 * @return the ant , or null if none
 	 */
 	public Ant antAt(Position pos) {
-		return cells[pos.x][pos.y].getAnt();
+		return antAt(indexOf(pos));
+	}
+	
+	/**
+	 * Gets the ant in a cell.
+	 * @param i the index of the cell
+	 * @return the ant , or null if none
+	 */
+	public Ant antAt(int i) {
+		int id = antAt[i];
+		if (id == -1)
+			return null;
+		return ants.view(id);
+	}
+	
+	/**
+	 * Gets the id of the ant in a cell.
+	 * @param i the index of the cell
+	 * @return the ant's id, or -1 if none
+	 */
+	public int antIdAt(int i) {
+		return antAt[i];
 	}
 	
 	/**
 	 * Sets the ant at a particular location.
-	 * @param x the x-coordinate
-	 * @param y the y coordinate
+	 * @param pos the position
 	 * @param ant the ant
 	 */
 	public void setAntAt(Position pos, Ant ant) {
-		cells[pos.x][pos.y].setAnt(ant);
+		setAntAt(indexOf(pos), ant);
+	}
+	
+	/**
+	 * Sets the ant in a cell.
+	 * @param i the index of the cell
+	 * @param ant the ant
+	 */
+	public void setAntAt(int i, Ant ant) {
+		if (ant == null)
+			clearAntAt(i);
+		else
+			setAntIdAt(i, ant.getId());
+	}
+	
+	/**
+	 * Puts an ant (by id) in a cell.
+	 * A recording takes this as the ant moving into the cell ahead of it, as only moves do so after setting up.
+	 * @param i the index of the cell
+	 * @param id the ant's id
+	 */
+	public void setAntIdAt(int i, int id) {
+		if (recorder != null)
+			recorder.event(id, ReplayWriter.MOVE);
+		if (antAt[i] != -1)
+			clearAntAt(i);
+		antAt[i] = id;
+		ants.setPosition(id, i);
+		senses[i] |= antSenses(id);
+		changedIn[i] = turn;
+		updateAdjacentCounts(i, ants.getColor(id), 1);
+	}
+	
+	/**
+	 * Changes the color of an ant, keeping the counts of ants next to each cell up to date.
+	 * @param id the ant's id
+	 * @param c the new color
+	 */
+	public void setAntColor(int id, E_Color c) {
+		int i = ants.getPosition(id);
+		if (i != -1)
+			updateAdjacentCounts(i, ants.getColor(id), -1);
+		ants.setColor(id, c);
+		if (i != -1) {
+			updateAdjacentCounts(i, c, 1);
+			senses[i] = (senses[i] & ~ANT_BITS) | antSenses(id);
+			changedIn[i] = turn;
+		}
+	}
+	
+	/**
+	 * Turns an ant to face a direction, marking its cell as changed for the display.
+	 * @param id the ant's id
+	 * @param d the direction as an E_Direction ordinal
+	 */
+	public void setAntDirection(int id, int d) {
+		if (recorder != null)
+			recorder.turned(id, ants.getDirection(id), d);
+		ants.setDirection(id, d);
+		int i = ants.getPosition(id);
+		if (i != -1)
+			changedIn[i] = turn;
+	}
+	
+	/**
+	 * Gives/takes a food particle from an ant, keeping the sense bits of its cell up to date.
+	 * @param id the ant's id
+	 * @param hasFood true to give food, false to take food
+	 */
+	public void setAntHasFood(int id, boolean hasFood) {
+		if (recorder != null && ants.hasFood(id) != hasFood)
+			recorder.event(id, hasFood ? ReplayWriter.PICKUP : ReplayWriter.DROP);
+		ants.setHasFood(id, hasFood);
+		int i = ants.getPosition(id);
+		if (i != -1)
+			senses[i] = (senses[i] & ~ANT_BITS) | antSenses(id);
 	}
 	
 	/**
 	 * Clears the ant at a particular location.
-	 * @param x the x-coordinate
-	 * @param y the y coordinate
+	 * @param pos the position
 	 */
 	public void clearAntAt(Position pos) {
-		cells[pos.x][pos.y].setAnt(null);
+		clearAntAt(indexOf(pos));
+	}
+	
+	/**
+	 * Clears the ant in a cell.
+	 * @param i the index of the cell
+	 */
+	public void clearAntAt(int i) {
+		if (antAt[i] != -1) {
+			ants.setPosition(antAt[i], -1);
+			updateAdjacentCounts(i, ants.getColor(antAt[i]), -1);
+		}
+		antAt[i] = -1;
+		senses[i] &= ~ANT_BITS;
+		changedIn[i] = turn;
 	}
 	
 	/**
@@ -308,23 +1015,63 @@ public class World {
 	 * @return true if alive, false otherwise
 	 */
 	public boolean antIsAlive(int id) {
-		for (Ant ant : ants)
-			if (ant.getId() == id && ant.isAlive())
-				return true;
-		return false;
+		return ants.isAlive(id);
 	}
 	
 	/**
 	 * Returns the x/y coordinates of an Ant.
 	 * @param id the ant to find
-	 * @return the position
+	 * @return the position, or null if the ant is not on the map
 	 */
 	public Position findAnt(int id) {
-        for (int x = 0; x < cells.length; x++)
-            for (int y = 0; y < cells[x].length; y++)
-            	if (cells[x][y].getAnt() != null && cells[x][y].getAnt().getId() == id)
-            		return cells[x][y].getPosition();
-        return null;
+		if (id < 0 || id >= ants.size() || ants.getPosition(id) == -1)
+			return null;
+		int i = ants.getPosition(id);
+		return new Position(i % width, i / width);
+	}
+	
+	/**
+	 * Checks the ant table's positions against the grid.
+	 * Every ant on the map must be alive and positioned at its own cell, and every living ant must be on the map.
+	 * The running counts of ants next to each cell must also match the grid.
+	 * @return true if the positions match the grid, false otherwise
+	 */
+	public boolean antIndexIsConsistent() {
+		int found = 0;
+		//	The running counts less one for each neighbour of each ant on the grid must come to nothing
+		byte[][] uncounted = new byte[adjacent.length][];
+		for (int c = 0; c < adjacent.length; c++) {
+			uncounted[c] = adjacent[c].clone();
+		}
+		for (int i = 0; i < antAt.length; i++) {
+			int id = antAt[i];
+			if (id != -1) {
+				if (!ants.isAlive(id) || ants.getPosition(id) != i)
+					return false;
+				found++;
+				updateAdjacentCounts(uncounted[ants.getColor(id).ordinal()], i, -1);
+			}
+		}
+		for (byte[] counts : uncounted) {
+			for (byte n : counts) {
+				if (n != 0)
+					return false;
+			}
+		}
+		for (int id = 0; id < ants.size(); id++) {
+			if (!ants.isAlive(id) && ants.getPosition(id) != -1)
+				return false;
+		}
+		return found == ants.living();
+	}
+	
+	/**
+	 * Turns on/off validation of the ant positions against the grid after every turn.
+	 * Intended for tests; a mismatch raises an IllegalStateException.
+	 * @param checkAntIndex true to validate each turn
+	 */
+	public void setAntIndexChecking(boolean checkAntIndex) {
+		this.checkAntIndex = checkAntIndex;
 	}
 	
 	/**
@@ -333,7 +1080,18 @@ public class World {
 	 */
 	public void killAntAt(Position p)
 	{
-		cells[p.x][p.y].killAnt();
+		killAntAt(indexOf(p));
+	}
+	
+	/**
+	 * Kills the Ant in a cell, creating 3 food particles.
+	 * @param i the index of the cell
+	 */
+	public void killAntAt(int i)
+	{
+		ants.setAlive(antAt[i], false);
+		clearAntAt(i);
+		setFoodAt(i, food[i] + 3);
 	}
 	
 	/**
@@ -342,7 +1100,16 @@ public class World {
 	 * @return the amount of food
 	 */
 	public int foodAt(Position p) {
-		return cells[p.x][p.y].getFoodAmount();
+		return food[indexOf(p)];
+	}
+	
+	/**
+	 * Returns how much food is in a cell.
+	 * @param i the index of the cell
+	 * @return the amount of food
+	 */
+	public int foodAt(int i) {
+		return food[i];
 	}
 	
 	/**
@@ -351,7 +1118,27 @@ public class World {
 	 * @param amount the amount of food to set
 	 */
 	public void setFoodAt(Position p, int amount) {
-		cells[p.x][p.y].setFoodAmount(amount);
+		setFoodAt(indexOf(p), amount);
+	}
+	
+	/**
+	 * Sets the amount of food in a cell, updating the score if the cell is an anthill.
+	 * @param i the index of the cell
+	 * @param amount the amount of food to set
+	 */
+	public void setFoodAt(int i, int amount) {
+		if (terrain[i] == RED_ANTHILL) {
+			redScore += amount - food[i];
+		} else if (terrain[i] == BLACK_ANTHILL) {
+			blackScore += amount - food[i];
+		}
+		cellHash += StateHash.key(StateHash.FOOD, i, 0) * (amount - food[i]);
+		food[i] = amount;
+		changedIn[i] = turn;
+		if (amount > 0)
+			senses[i] |= FOOD_BIT;
+		else
+			senses[i] &= ~FOOD_BIT;
 	}
 	
 	/**
@@ -361,9 +1148,112 @@ public class World {
 	 * @return true if an anthill is present, false otherwise
 	 */
 	public boolean getAnthillAt(Position p, E_Color c) {
+		return getAnthillAt(indexOf(p), c);
+	}
+	
+	/**
+	 * Returns true if an anthill of the given color is in a cell.
+	 * @param i the index of the cell
+	 * @param c the color
+	 * @return true if an anthill is present, false otherwise
+	 */
+	public boolean getAnthillAt(int i, E_Color c) {
 		if (c == E_Color.BLACK)
-			return cells[p.x][p.y].getTerrain() == E_Terrain.BLACK_ANTHILL;
-		return cells[p.x][p.y].getTerrain() == E_Terrain.RED_ANTHILL;
+			return terrain[i] == BLACK_ANTHILL;
+		return terrain[i] == RED_ANTHILL;
+	}
+	
+	/**
+	 * Checks if a marker of the given color and number is in a cell.
+	 * @param i the index of the cell
+	 * @param color the color to check
+	 * @param marker the number to check
+	 * @return true if present, false otherwise
+	 */
+	public boolean checkMarker(int i, E_Color color, int marker) {
+		if (marker < 0 || marker > 5)
+			return false;
+		return (senses[i] & markerBit(color, marker)) != 0;
+	}
+	
+	/**
+	 * Checks if any marker of the given color is in a cell.
+	 * @param i the index of the cell
+	 * @param color the color to check
+	 * @return true if present, false otherwise
+	 */
+	public boolean checkAnyMarker(int i, E_Color color) {
+		return (senses[i] & markerBits(color)) != 0;
+	}
+	
+	/**
+	 * Sets a marker in a cell.
+	 * @param i the index of the cell
+	 * @param color the color of the marker
+	 * @param marker the number of the marker
+	 * @return true if OK, false otherwise
+	 */
+	public boolean setMarker(int i, E_Color color, int marker) {
+		if (marker < 0 || marker > 5)
+			return false;
+		//	Marking a cell already marked changes nothing the display or a replay needs to know about
+		if ((senses[i] & markerBit(color, marker)) == 0) {
+			if (recorder != null && antAt[i] != -1)
+				recorder.event(antAt[i], ReplayWriter.MARK, marker);
+			markersChanged(i, senses[i] & 0xFFF, (senses[i] | markerBit(color, marker)) & 0xFFF);
+			senses[i] |= markerBit(color, marker);
+			changedIn[i] = turn;
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes a marker from a cell.
+	 * @param i the index of the cell
+	 * @param color the color of the marker
+	 * @param marker the number of the marker
+	 * @return true if OK, false otherwise
+	 */
+	public boolean clearMarker(int i, E_Color color, int marker) {
+		if (marker < 0 || marker > 5)
+			return false;
+		if ((senses[i] & markerBit(color, marker)) != 0) {
+			if (recorder != null && antAt[i] != -1)
+				recorder.event(antAt[i], ReplayWriter.UNMARK, marker);
+			markersChanged(i, senses[i] & 0xFFF, senses[i] & ~markerBit(color, marker) & 0xFFF);
+			senses[i] &= ~markerBit(color, marker);
+			changedIn[i] = turn;
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes all markers from a cell.
+	 * @param i the index of the cell
+	 */
+	public void clearAllMarkers(int i) {
+		markersChanged(i, senses[i] & 0xFFF, 0);
+		senses[i] &= ~0xFFF;
+		changedIn[i] = turn;
+	}
+	
+	/**
+	 * Returns the bit a marker is stored in.
+	 * @param color the color of the marker
+	 * @param marker the number of the marker
+	 * @return the bit
+	 */
+	private static int markerBit(E_Color color, int marker) {
+		return MARKER_MASKS[color.ordinal()][marker];
+	}
+	
+	/**
+	 * Returns the bits all markers of a color are stored in.
+	 * @param color the color of the markers
+	 * @return the bits
+	 */
+	private static int markerBits(E_Color color) {
+		return ALL_MARKERS[color.ordinal()];
 	}
 	
 	/**
@@ -374,87 +1264,159 @@ public class World {
 	 * @return true if cond holds at p, false otherwise
 	 */
 	public boolean cellMatches(Position p, E_Condition cond, E_Color c) {
+		if (stepByStates)
+			return cellMatchesBySpec(indexOf(p), cond, c);
+		return cellMatches(indexOf(p), cond, c);
+	}
+	
+	/**
+	 * Checks whether a given condition holds in a given cell the slow way, from what is in the cell, as the spec does.
+	 * Only the markers are read from the sense bits, as that is where they are kept.
+	 * @param i the index of the cell
+	 * @param cond the condition
+	 * @param c the color of the ant doing the sensing
+	 * @return true if cond holds in the cell, false otherwise
+	 */
+	private boolean cellMatchesBySpec(int i, E_Condition cond, E_Color c) {
+		int a = antAt[i];
 		switch (cond)
 		{
-			case FRIEND:
-				return someAntIsAt(p) && antAt(p).getColor() == c;
-			case FOE:
-				return someAntIsAt(p) && antAt(p).getColor() != c;
-			case FRIENDWITHFOOD:
-				return someAntIsAt(p) && antAt(p).getColor() == c && antAt(p).hasFood();
-			case FOEWITHFOOD:
-				return someAntIsAt(p) && antAt(p).getColor() != c && antAt(p).hasFood();
-			case FOOD:
-				return foodAt(p) > 0;
-			case ROCK:
-				return cells[p.x][p.y].getTerrain() == E_Terrain.ROCKY;
-			case MARKER0:
-				return cells[p.x][p.y].checkMarker(c, 0);
-			case MARKER1:
-				return cells[p.x][p.y].checkMarker(c, 1);
-			case MARKER2:
-				return cells[p.x][p.y].checkMarker(c, 2);
-			case MARKER3:
-				return cells[p.x][p.y].checkMarker(c, 3);
-			case MARKER4:
-				return cells[p.x][p.y].checkMarker(c, 4);
-			case MARKER5:
-				return cells[p.x][p.y].checkMarker(c, 5);
+			case FRIEND: return a != -1 && ants.getColor(a) == c;
+			case FOE: return a != -1 && ants.getColor(a) != c;
+			case FRIENDWITHFOOD: return a != -1 && ants.getColor(a) == c && ants.hasFood(a);
+			case FOEWITHFOOD: return a != -1 && ants.getColor(a) != c && ants.hasFood(a);
+			case FOOD: return food[i] > 0;
+			case ROCK: return terrain[i] == ROCKY;
+			case MARKER0: return checkMarker(i, c, 0);
+			case MARKER1: return checkMarker(i, c, 1);
+			case MARKER2: return checkMarker(i, c, 2);
+			case MARKER3: return checkMarker(i, c, 3);
+			case MARKER4: return checkMarker(i, c, 4);
+			case MARKER5: return checkMarker(i, c, 5);
 			case FOEMARKER:
-				return cells[p.x][p.y].checkAnyMarker(c.otherColor());
-			case HOME:
-				return getAnthillAt(p, c);
-			case FOEHOME:
-				return getAnthillAt(p, c.otherColor());
-				
+				for (int m = 0; m < 6; m++) {
+					if (checkMarker(i, c.otherColor(), m))
+						return true;
+				}
+				return false;
+			case HOME: return getAnthillAt(i, c);
+			case FOEHOME: return getAnthillAt(i, c.otherColor());
+			default: return false;	//	MARKER never holds without a marker number
 		}
-		return false;
+	}
+	
+	/**
+	 * Checks whether a given condition holds in a given cell.
+	 * @param i the index of the cell
+	 * @param cond the condition
+	 * @param c the color of the ant doing the sensing
+	 * @return true if cond holds in the cell, false otherwise
+	 */
+	public boolean cellMatches(int i, E_Condition cond, E_Color c) {
+		//	One load and one mask test, whatever the condition
+		return (senses[i] & CONDITION_MASKS[c.ordinal()][cond.ordinal()]) != 0;
 	}
 	
 	/**
 	 * Returns the adjacent cell in the given direction.
 	 * @param p the current position
 	 * @param dir the direction
-	 * @return the position of the adjacent cell in the given direction, or null if off the map
+	 * @return the adjacent cell in the given direction, or null if off the map
 	 */
 	public Cell adjacentCell(Position p, E_Direction dir) {
-		Position adjacent = null;
-		switch (dir) {
-			case EAST:
-				adjacent = new Position(p.x + 1, p.y);
-				break;
-			case SOUTHEAST:
-				if (p.y % 2 == 0)	//	Even
-					adjacent = new Position(p.x, p.y +1);
-				else				//	Odd
-					adjacent = new Position(p.x + 1 , p.y + 1);
-				break;
-			case SOUTHWEST:
-				if (p.y % 2 == 0)	//	Even
-					adjacent = new Position(p.x - 1, p.y + 1);
-				else				//	Odd
-					adjacent = new Position(p.x, p.y + 1);
-				break;
-			case WEST:
-				adjacent = new Position(p.x - 1, p.y);
-				break;
-			case NORTHWEST:
-				if (p.y % 2 == 0)	//	Even
-					adjacent = new Position(p.x - 1, p.y - 1);
-				else				//	Odd
-					adjacent = new Position(p.x, p.y - 1);
-				break;
-			case NORTHEAST:
-				if (p.y % 2 == 0)	//	Even
-					adjacent = new Position(p.x, p.y - 1);
-				else				//	Odd
-					adjacent = new Position(p.x + 1, p.y - 1);
-				break;
+		if (stepByStates) {
+			Position nb = adjacentPosition(p, dir);
+			return nb == null ? null : getCellAt(indexOf(nb));
+		}
+		int i = adjacentIndex(indexOf(p), dir);
+		if (i == -1)
+			return null;
+		return getCellAt(i);
+	}
+	
+	/**
+	 * Works out the position of the adjacent cell in the given direction as the spec does, without the neighbour table.
+	 * @param p the current position
+	 * @param dir the direction
+	 * @return the adjacent position, or null if off the map
+	 */
+	private Position adjacentPosition(Position p, E_Direction dir) {
+		boolean odd = p.y % 2 == 1;
+		int x = p.x, y = p.y;
+		switch (dir)
+		{
+			case EAST: x++; break;
+			case SOUTHEAST: if (odd) x++; y++; break;
+			case SOUTHWEST: if (!odd) x--; y++; break;
+			case WEST: x--; break;
+			case NORTHWEST: if (!odd) x--; y--; break;
+			case NORTHEAST: if (odd) x++; y--; break;
 		}
-		//	Check calculated position is not off the map
-		if (adjacent.x < 0 || adjacent.x > cells.length || adjacent.y < 0 || adjacent.y > cells[0].length)
+		if (x < 0 || x >= width || y < 0 || y >= height)
 			return null;
-		return cells[adjacent.x][adjacent.y];
+		return new Position(x, y);
+	}
+	
+	/**
+	 * Returns the index of the adjacent cell in the given direction.
+	 * @param i the index of the current cell
+	 * @param dir the direction
+	 * @return the index of the adjacent cell in the given direction, or -1 if off the map
+	 */
+	public int adjacentIndex(int i, E_Direction dir) {
+		return neighbours[i * 6 + dir.ordinal()];
+	}
+	
+	/**
+	 * Returns the index of the adjacent cell in the given direction.
+	 * @param i the index of the current cell
+	 * @param dir the direction, as an E_Direction ordinal
+	 * @return the index of the adjacent cell in the given direction, or -1 if off the map
+	 */
+	public int adjacentIndex(int i, int dir) {
+		return neighbours[i * 6 + dir];
+	}
+	
+	/**
+	 * Builds the neighbour table for a map: the index of the neighbour of every cell in every direction.
+	 * Odd rows are staggered to the right.
+	 * @param width the width of the map
+	 * @param height the height of the map
+	 * @return the table, indexed by cell * 6 + E_Direction ordinal, with -1 for off the map
+	 */
+	private static int[] buildNeighbours(int width, int height) {
+		//	x/y offsets in E_Direction order, for even and odd rows
+		int[][] evenOffsets = {{1, 0}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}};
+		int[][] oddOffsets = {{1, 0}, {1, 1}, {0, 1}, {-1, 0}, {0, -1}, {1, -1}};
+		int[] neighbours = new int[width * height * 6];
+		for (int y = 0; y < height; y++) {
+			int[][] offsets = (y % 2 == 0) ? evenOffsets : oddOffsets;
+			for (int x = 0; x < width; x++) {
+				for (int d = 0; d < 6; d++) {
+					int nx = x + offsets[d][0];
+					int ny = y + offsets[d][1];
+					//	Check calculated position is not off the map
+					if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+						neighbours[(y * width + x) * 6 + d] = -1;
+					else
+						neighbours[(y * width + x) * 6 + d] = ny * width + nx;
+				}
+			}
+		}
+		return neighbours;
+	}
+	
+	/**
+	 * Returns a new World on the same map as this one, with nothing shared but the brains.
+	 * Lets several games on one map be played at the same time.
+	 * @return the copy
+	 */
+	public World copy() {
+		World copy = new World(width, height, terrain, unchangedFood, neighbours);
+		copy.setSeed(seed);
+		copy.setRedBrain(redName, redBrain);
+		copy.setBlackBrain(blackName, blackBrain);
+		return copy;
 	}
 	
 	/**
@@ -464,15 +1426,16 @@ public class World {
 	public static World generateMap() {
 		int x = 150;
 		int y = 150;
-		Cell[][] cells = new Cell[x][y];
+		byte[] terrain = new byte[x * y];
+		int[] food = new int[x * y];
 		
 		// Make a rocky border, other cells clear
 		for (int i = 0; i < y; i++){
 			for (int j = 0; j < x; j++){
 				if ((i == 0) || (i == y-1) || (j == 0) || (j == x-1)){
-					cells[j][i] = new Cell(E_Terrain.ROCKY, 0, new Position(j, i));
+					terrain[i * x + j] = ROCKY;
 				} else {
-					cells[j][i] = new Cell(E_Terrain.CLEAR, 0, new Position(j, i));
+					terrain[i * x + j] = CLEAR;
 				}
 			}
 		}
@@ -493,31 +1456,31 @@ public class World {
 		// Red Anthill
 		origin = origins.get((int)(Math.random()*origins.size())); // pick origin point
 		origins = clearRegion(origins, origin);  //remove relevant points from available origin points
-		placeAnthill(cells, E_Terrain.RED_ANTHILL, origin);
+		placeAnthill(terrain, x, RED_ANTHILL, origin);
 		
 		// Black Anthill
 		origin = origins.get((int)(Math.random()*origins.size())); //pick origin point
 		origins = clearRegion(origins, origin);  //remove relevant points from available origin points
-		placeAnthill(cells, E_Terrain.BLACK_ANTHILL, origin);
+		placeAnthill(terrain, x, BLACK_ANTHILL, origin);
 		
 		// Food
 		for (int i = 0; i < 11; i++){
 			origin = origins.get((int)(Math.random()*origins.size())); //pick origin point
 			origins = clearRegion(origins, origin);  //remove relevant points from available origin points
-			placeFoodBlob(cells, origin);
+			placeFoodBlob(terrain, food, x, origin);
 		}
 		
 		// Rocks
 		for (int i = 0; i < 14; i++){
 			origin = origins.get((int)(Math.random()*origins.size())); //pick origin point
 			origins = clearRegion(origins, origin);  //remove relevant points from available origin points
-			placeRock(cells, origin);
+			placeRock(terrain, x, origin);
 		}
 		
 		// Save map into a text file (for debugging purposes)
-		saveWorld(cells);
+		saveWorld(x, y, terrain, food);
 
-		return new World(cells);
+		return new World(x, y, terrain, food);
 	}
 	
 	
@@ -549,11 +1512,12 @@ public class World {
 	/**
 	 * Places a rock in a given region of the map
 	 * 
-	 * @param cells the map to place the rock on
+	 * @param terrain the terrain of the map to place the rock on
+	 * @param width the width of the map
 	 * @param origin upper left corner of the 18x18 region of the map
 	 * that the rock would be placed in
 	 */
-	private static void placeRock(Cell[][] cells, Position origin){
+	private static void placeRock(byte[] terrain, int width, Position origin){
 		ArrayList<Position> rock = new ArrayList<>();
 		// Select rock shape at random 
 		int rockType = (int)(7*Math.random());
@@ -754,8 +1718,7 @@ public class World {
 		
 		// Place the rock
 		for (Position pos : rock){
-			cells[pos.x + origin.x][pos.y + origin.y] = new Cell(E_Terrain.ROCKY, 
-					0, new Position(pos.x + origin.x, pos.y + origin.y));
+			terrain[(pos.y + origin.y) * width + pos.x + origin.x] = ROCKY;
 		}
 		
 	}
@@ -764,11 +1727,13 @@ public class World {
 	 * Places a food blob (5x5 rectangle) in a given
 	 * region of the map
 	 * 
-	 * @param cells map to place the food blob on
+	 * @param terrain the terrain of the map to place the food blob on
+	 * @param food the food of the map to place the food blob on
+	 * @param width the width of the map
 	 * @param origin upper left corner of the 18x18 region of the map
 	 * that the food blob would be placed in
 	 */
-	private static void placeFoodBlob(Cell[][] cells, Position origin){
+	private static void placeFoodBlob(byte[] terrain, int[] food, int width, Position origin){
 		Position[] foodBlob = new Position[25];
 		int ind = 0;
 		for (int i = 6; i < 11; i++){
@@ -780,8 +1745,8 @@ public class World {
 		
 		// Place the food
 		for (Position pos : foodBlob){
-			cells[pos.x + origin.x][pos.y + origin.y] = new Cell(E_Terrain.CLEAR, 
-					5, new Position(pos.x + origin.x, pos.y + origin.y));
+			terrain[(pos.y + origin.y) * width + pos.x + origin.x] = CLEAR;
+			food[(pos.y + origin.y) * width + pos.x + origin.x] = 5;
 		}
 		
 	}
@@ -790,12 +1755,13 @@ public class World {
 	 * Places an anthill of a given type 
 	 * in a region of the map
 	 * 
-	 * @param cells map to place the anthill on
-	 * @param anthillType type of anthill to place
+	 * @param terrain the terrain of the map to place the anthill on
+	 * @param width the width of the map
+	 * @param anthillType type of anthill to place (E_Terrain ordinal)
 	 * @param origin upper left corner of the 18x18 region of the map
 	 * that the anthill would be placed in
 	 */
-	private static void placeAnthill(Cell[][] cells, E_Terrain anthillType, Position origin){
+	private static void placeAnthill(byte[] terrain, int width, byte anthillType, Position origin){
 		Position[] anthill = {new Position(5, 2), new Position(6, 2), 
 				new Position(7, 2), new Position(7, 2), new Position(8, 2),
 				new Position(9, 2), new Position(10, 2), new Position(11, 2),
@@ -846,8 +1812,7 @@ public class World {
 	
 		// Place the anthill
 		for (Position pos : anthill){
-			cells[pos.x + origin.x][pos.y + origin.y] = 
-					new Cell(anthillType, 0, new Position(pos.x + origin.x, pos.y + origin.y));
+			terrain[(pos.y + origin.y) * width + pos.x + origin.x] = anthillType;
 		}
 		
 		
@@ -857,23 +1822,26 @@ public class World {
 	/**
 	 * Saves the map to the text file.
 	 * 
-	 * @param cells 2d array of cells representing the map
+	 * @param width the width of the map
+	 * @param height the height of the map
+	 * @param terrain the terrain of each cell
+	 * @param food the food in each cell
 	 */
-	private static void saveWorld(Cell[][] cells){
+	private static void saveWorld(int width, int height, byte[] terrain, int[] food){
 		try {
 			File mapfile = new File("automap.txt");
 			BufferedWriter mapout = new BufferedWriter(new FileWriter(mapfile));
-			mapout.write(Integer.toString(cells[0].length));
+			mapout.write(Integer.toString(width));
 			mapout.newLine();
-			mapout.write(Integer.toString(cells.length));
+			mapout.write(Integer.toString(height));
 			mapout.newLine();
-			for (int i = 0; i < cells.length; i++){
+			for (int i = 0; i < height; i++){
 				// Indent every second line
 				if (i % 2 == 1){
 					mapout.write(" ");
 				}
-				for (int j = 0; j < cells[0].length; j++){
-					switch(cells[j][i].getTerrain()){
+				for (int j = 0; j < width; j++){
+					switch(TERRAINS[terrain[i * width + j]]){
 						case ROCKY:
 							mapout.write("#");
 							break;
@@ -884,10 +1852,10 @@ public class World {
 							mapout.write("-");
 							break;
 						case CLEAR:
-							if (cells[j][i].getFoodAmount() == 0){
+							if (food[i * width + j] == 0){
 								mapout.write(".");
 							} else {
-								mapout.write(Integer.toString(cells[j][i].getFoodAmount()));
+								mapout.write(Integer.toString(food[i * width + j]));
 							}
 							break;
 					}
@@ -902,21 +1870,6 @@ public class World {
 		}
 	}
 	
-	/**
-	 * Copies a 2d array of cells 
-	 * @param original original array
-	 * @return copy of the original array
-	 */
-	private static Cell[][] deepCopyCells(Cell[][] original){
-		Cell[][] copy = new Cell[original.length][original[0].length];
-		for (int i = 0; i < original.length; i ++) {
-			for (int j = 0; j < original[0].length; j ++) {
-				copy[i][j] = Cell.copy(original[i][j]);
-			}
-		}
-		return copy;
-	}
-	
 	/**
 	 * Parses a world file to World object.
 	 * @param absolutePath the path to the World file
@@ -931,32 +1884,34 @@ public class World {
 			int x = Integer.parseInt(line);
 			line = br.readLine();
 			int y = Integer.parseInt(line);
-			//	Setup grid of map cells - note x, y not row, column - is this OK?
-			Cell[][] cells = new Cell[x][y];
+			//	Setup the map arrays, indexed by y * x + column
+			byte[] terrain = new byte[x * y];
+			int[] food = new int[x * y];
 	
 			//	Now read y lines of length x
 			for (int i = 0; i < y; i++) {
 				line = br.readLine();
-				line = line.replace(" ", "");
+				line = line.replace(" ", "");
 				if (line.length() != x)
 					throw new IllegalArgumentException();
 				
 				for (int j = 0; j < x; j ++) {
 					switch (line.charAt(j)){
 						case '.':			//	Clear cell
-							cells[j][i] = new Cell(E_Terrain.CLEAR, 0, new Position(j, i));
+							terrain[i * x + j] = CLEAR;
 							break;
 						case '#':			//	Rocky cell
-							cells[j][i] = new Cell(E_Terrain.ROCKY, 0, new Position(j, i));
+							terrain[i * x + j] = ROCKY;
 							break;
 						case '+':			//	Red anthill
-							cells[j][i] = new Cell(E_Terrain.RED_ANTHILL, 0, new Position(j, i));
+							terrain[i * x + j] = RED_ANTHILL;
 							break;	
 						case '-':			//	Black anthill
-							cells[j][i] = new Cell(E_Terrain.BLACK_ANTHILL, 0, new Position(j, i));
+							terrain[i * x + j] = BLACK_ANTHILL;
 							break;
 						default:			//	Clear cell with food
-							cells[j][i] = new Cell(E_Terrain.CLEAR, Character.getNumericValue(line.charAt(j)), new Position(j, i));
+							terrain[i * x + j] = CLEAR;
+							food[i * x + j] = Character.getNumericValue(line.charAt(j));
 							break;
 					}
 				}
@@ -967,7 +1922,7 @@ public class World {
 			for (int i = 0; i < y; i++){
 				for (int j = 0; j < x; j++){
 					if ((i == 0) || (i == y-1) || (j == 0) || (j == x-1)){
-						if (cells[j][i].getTerrain() != E_Terrain.ROCKY){
+						if (terrain[i * x + j] != ROCKY){
 							throw new IllegalArgumentException();
 						}
 					} 
@@ -975,7 +1930,7 @@ public class World {
 			}//end of rocky borders check
 			
 			
-			return new World(cells);
+			return new World(x, y, terrain, food);
 			
 		} catch (Exception e) {
 			//	This error caught dealt with later.
@@ -1019,6 +1974,23 @@ public class World {
 		return redBrain;
 	}
 
+	/**
+	 * Returns the brain of the given color.
+	 * @param c the color
+	 * @return the state machine, or null if not set
+	 */
+	public StateMachine getBrain(E_Color c) {
+		return c == E_Color.RED ? redBrain : blackBrain;
+	}
+	
+	/**
+	 * Returns the ants of the current game.
+	 * @return the ant table
+	 */
+	public AntTable getAnts() {
+		return ants;
+	}
+
 	/**
 	 * Sets the red player's brain.
 	 * @param redName name of the red team
@@ -1095,6 +2067,22 @@ public class World {
 		this.isPaused = isPaused;
 	}
 
+	/**
+	 * Gets the recording being shown.
+	 * @return the recording, or null if a game is being played
+	 */
+	public ReplayReader getReplay() {
+		return replay;
+	}
+
+	/**
+	 * Asks for the recording being shown to jump to a turn. Only the latest request is carried out.
+	 * @param turn the turn to show
+	 */
+	public void seekReplay(int turn) {
+		seekTo.set(Math.max(0, turn));
+	}
+
 	/**
 	 * Gets the amount the game sleeps for between each turn.
 	 * @return the amount
@@ -1111,6 +2099,56 @@ public class World {
 		this.sleepAmount = sleepAmount;
 	}
 
+	/**
+	 * Sets the seed each game's RNG starts from.
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		this.rng.setSeed(seed);
+	}
+	
+	/**
+	 * Gets the seed each game's RNG starts from.
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Sets the logger that dumps the world after each turn it selects.
+	 * @param logger the logger, or null for no dump
+	 */
+	public void setLogger(AntLogger logger) {
+		this.logger = logger;
+	}
+	
+	/**
+	 * Sets a recorder for the next game played on this world. It is closed when that game ends.
+	 * @param recorder the recorder, or null for no recording
+	 */
+	public void setRecorder(ReplayWriter recorder) {
+		this.recorder = recorder;
+	}
+	
+	/**
+	 * Moves the world on to a turn without playing it, waking the ants due on it; used when showing a recording.
+	 * @param t the turn
+	 */
+	void setTurn(int t) {
+		turn = t;
+		ants.startTurn(t);
+	}
+	
+	/**
+	 * Returns the RNG of the current game.
+	 * @return the RNG
+	 */
+	public RandGenerator getRandGenerator() {
+		return rng;
+	}
+
 	/**
 	 * Gets the current turn.
 	 * @return the turn
@@ -1118,4 +2156,70 @@ public class World {
 	public int getTurn() {
 		return turn;
 	}
+	
+	/**
+	 * Hands the display a snapshot of the turn just played, if it has taken the last one.
+	 * Called on the game thread between turns; never waits for the display.
+	 * @param force true to publish even if the display has not taken the last snapshot, replacing it
+	 * @return true if a snapshot was published, false if none was free
+	 */
+	private boolean publishSnapshot(boolean force) {
+		if (!force && readySnapshot.get() != null)
+			return false;
+		if (backSnapshot == null)
+			backSnapshot = freeSnapshot.getAndSet(null);
+		if (backSnapshot == null && force)
+			backSnapshot = readySnapshot.getAndSet(null);
+		if (backSnapshot == null)
+			return false;
+		fillSnapshot(backSnapshot);
+		//	Normally nothing comes back; if forced, this reclaims a snapshot the display never took
+		backSnapshot = readySnapshot.getAndSet(backSnapshot);
+		return true;
+	}
+	
+	/**
+	 * Brings a snapshot up to the end of the current turn.
+	 * Only cells changed since the snapshot was last filled are copied, unless it is from an earlier game.
+	 * @param snapshot the snapshot to fill
+	 */
+	private void fillSnapshot(TurnSnapshot snapshot) {
+		boolean full = snapshot.game != game;
+		for (int i = 0; i < terrain.length; i++) {
+			if (full || changedIn[i] > snapshot.turn) {
+				snapshot.food[i] = food[i];
+				snapshot.markers[i] = (short) (senses[i] & 0xFFF);
+				int id = antAt[i];
+				snapshot.ants[i] = (byte) (id == -1 ? -1 : ants.getColor(id).ordinal() * 6 + ants.getDirection(id));
+				snapshot.changedIn[i] = changedIn[i];
+			}
+		}
+		snapshot.game = game;
+		snapshot.turn = turn;
+		snapshot.redScore = redScore;
+		snapshot.blackScore = blackScore;
+	}
+	
+	/**
+	 * Takes the newest snapshot, if there is one the display has not seen, and gives back the one it replaces.
+	 * Only to be called on the EDT.
+	 * @return true if there is a new snapshot to show, false otherwise
+	 */
+	public boolean takeSnapshot() {
+		TurnSnapshot next = readySnapshot.getAndSet(null);
+		if (next == null)
+			return false;
+		if (frontSnapshot != null)
+			freeSnapshot.set(frontSnapshot);
+		frontSnapshot = next;
+		return true;
+	}
+	
+	/**
+	 * Gets the snapshot the display is showing. Only to be called on the EDT.
+	 * @return the snapshot, or null if none has been taken yet
+	 */
+	public TurnSnapshot getSnapshot() {
+		return frontSnapshot;
+	}
 }